@@ -31,13 +31,16 @@ import net.minecraft.client.input.MouseButtonEvent;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.resources.Identifier;
+import net.minecraft.util.FormattedCharSequence;
 import net.minecraft.world.entity.player.Inventory;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 import org.joml.Vector2i;
 import org.ladysnake.blabber.Blabber;
+import org.ladysnake.blabber.api.client.illustration.DialogueIllustrationRenderer;
 import org.ladysnake.blabber.api.client.illustration.IllustrationContainer;
 import org.ladysnake.blabber.api.layout.DialogueLayout;
+import org.ladysnake.blabber.impl.client.illustrations.IllustrationPrefetcher;
 import org.ladysnake.blabber.impl.client.widgets.DialogueChoiceListWidget;
 import org.ladysnake.blabber.impl.client.widgets.DialogueTextWidget;
 import org.ladysnake.blabber.impl.common.DialogueScreenHandler;
@@ -45,10 +48,10 @@ import org.ladysnake.blabber.impl.common.illustrations.PositionTransform;
 import org.ladysnake.blabber.impl.common.machine.AvailableChoice;
 import org.ladysnake.blabber.impl.common.model.IllustrationAnchor;
 import org.ladysnake.blabber.impl.common.model.StateType;
-import org.ladysnake.blabber.impl.common.packets.ChoiceSelectionPayload;
 import org.ladysnake.blabber.impl.common.settings.BlabberSetting;
 import org.ladysnake.blabber.impl.common.settings.BlabberSettingsComponent;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -99,6 +102,15 @@ public class BlabberDialogueScreen<P extends DialogueLayout.Params> extends Abst
     protected DialogueChoiceListWidget choiceList;
 
     protected final IllustrationContainer illustrations = new IllustrationContainer();
+    private final IllustrationPrefetcher prefetcher = new IllustrationPrefetcher(this.illustrations);
+    /**
+     * The choices the current layout was prepared with, used to notice when the server changes them
+     */
+    private @Nullable ImmutableList<AvailableChoice> displayedChoices;
+    /**
+     * Parts of the screen that only change when the layout is prepared, reused every frame until then
+     */
+    private @Nullable RetainedContent retainedContent;
 
     public BlabberDialogueScreen(DialogueScreenHandler handler, Inventory inventory, Component title) {
         super(handler, inventory, title);
@@ -120,8 +132,8 @@ public class BlabberDialogueScreen<P extends DialogueLayout.Params> extends Abst
         super.init();
         this.title = this.addRenderableWidget(new DialogueTextWidget(0, 0, mainTextMaxWidth, mainTextMaxRows, Component.empty(), this.font));
         this.choiceList = this.addRenderableWidget(createChoiceList());
-        this.prepareLayout();
         this.illustrations.setIllustrations(this.menu.getIllustrations());
+        this.prepareLayout();
     }
 
     protected DialogueChoiceListWidget createChoiceList() {
@@ -134,9 +146,43 @@ public class BlabberDialogueScreen<P extends DialogueLayout.Params> extends Abst
         this.title.setTextWidth(mainTextMaxWidth);
         this.title.setTextColor(mainTextColor);
         this.title.setMessage(menu.getCurrentText());
-        this.choiceList.setChoices(menu.getAvailableChoices());
+        this.displayedChoices = menu.getAvailableChoices();
+        this.choiceList.setChoices(this.displayedChoices);
         this.positionChoiceList();
         this.layoutIllustrationAnchors();
+        this.retainedContent = this.createRetainedContent();
+        this.prefetcher.onStateShown(this.menu.getCurrentStateKey(), this.menu.getCurrentIllustrations());
+        this.prefetcher.prefetch(this.menu.getNearbyIllustrations());
+    }
+
+    private RetainedContent createRetainedContent() {
+        PositionTransform positionTransform = this.createPositionTransform();
+        positionTransform.setControlPoints(0, 0, this.width, this.height);
+        List<DialogueIllustrationRenderer<?>> renderers = new ArrayList<>();
+        for (String illustrationName : this.menu.getCurrentIllustrations()) {
+            renderers.add(this.illustrations.getRenderer(illustrationName));
+        }
+        return new RetainedContent(
+                positionTransform,
+                renderers,
+                this.font.split(this.instructions, this.width - 5),
+                Math.max((this.width - this.font.width(this.instructions)) / 2, 5)
+        );
+    }
+
+    @Override
+    protected void containerTick() {
+        super.containerTick();
+        // A choice made ahead of the server only leads somewhere once the server reveals where
+        StateType reachedState = this.menu.pollReachedStateType();
+        if (reachedState != null && reachedState != StateType.DEFAULT) {
+            this.onStateReached(reachedState);
+            return;
+        }
+        // Availability updates, newly revealed states and state corrections all come with a new list of choices
+        if (this.menu.getAvailableChoices() != this.displayedChoices) {
+            this.prepareLayout();
+        }
     }
 
     protected void positionChoiceList() {
@@ -173,8 +219,12 @@ public class BlabberDialogueScreen<P extends DialogueLayout.Params> extends Abst
         }
 
         StateType result = this.makeChoice(selectedChoice);
+        this.onStateReached(result);
+        return result;
+    }
 
-        switch (result) {
+    protected void onStateReached(StateType type) {
+        switch (type) {
             case END_DIALOGUE -> this.minecraft.setScreen(null);
             case ASK_CONFIRMATION -> {
                 ImmutableList<AvailableChoice> choices = this.menu.getAvailableChoices();
@@ -190,8 +240,6 @@ public class BlabberDialogueScreen<P extends DialogueLayout.Params> extends Abst
                 this.prepareLayout();
             }
         }
-
-        return result;
     }
 
     private void onBigChoiceMade(boolean yes) {
@@ -220,19 +268,21 @@ public class BlabberDialogueScreen<P extends DialogueLayout.Params> extends Abst
         super.extractRenderState(graphics, mouseX, mouseY, tickDelta);
 
         assert minecraft.player != null;
+        assert this.retainedContent != null;
 
-        PositionTransform positionTransform = this.createPositionTransform();
-        positionTransform.setControlPoints(0, 0, this.width, this.height);
-
-        for (String illustrationName : this.menu.getCurrentIllustrations()) {
-            illustrations.getRenderer(illustrationName).extractRenderState(graphics, this.font, positionTransform, mouseX, mouseY, tickDelta);
+        // Illustrations still get extracted every frame, as some follow the mouse or animate
+        PositionTransform positionTransform = this.retainedContent.positionTransform();
+        for (DialogueIllustrationRenderer<?> renderer : this.retainedContent.illustrations()) {
+            renderer.extractRenderState(graphics, this.font, positionTransform, mouseX, mouseY, tickDelta);
         }
 
-        graphics.textWithWordWrap(this.font, instructions, Math.max((this.width - this.font.width(instructions)) / 2, 5), instructionsMinY, this.width - 5, 0xFF808080, false);
+        List<FormattedCharSequence> instructionLines = this.retainedContent.instructionLines();
+        for (int i = 0; i < instructionLines.size(); i++) {
+            graphics.text(this.font, instructionLines.get(i), this.retainedContent.instructionsX(), instructionsMinY + i * this.font.lineHeight, 0xFF808080, false);
+        }
 
         BlabberSettingsComponent settings = BlabberSettingsComponent.get(minecraft.player);
         if (settings.isDebugEnabled()) {
-            positionTransform.setControlPoints(0, 0, this.width, this.height);
             renderDebugInfo(settings, graphics, positionTransform, mouseX, mouseY);
         }
     }
@@ -245,6 +295,9 @@ public class BlabberDialogueScreen<P extends DialogueLayout.Params> extends Abst
         if (settings.isEnabled(BlabberSetting.DEBUG_ANCHORS)) {
             this.renderAnchorDebugInfo(context, positionTransform, mouseX, mouseY);
         }
+        if (settings.isEnabled(BlabberSetting.DEBUG_PREFETCH)) {
+            context.text(this.font, Component.translatable("blabber:dialogue.debug.prefetch", IllustrationPrefetcher.getHitCount(), IllustrationPrefetcher.getMissCount()), 2, 2, 0xFFFFFFFF, true);
+        }
     }
 
     protected void renderAnchorDebugInfo(GuiGraphicsExtractor context, PositionTransform positionTransform, int mouseX, int mouseY) {
@@ -277,9 +330,8 @@ public class BlabberDialogueScreen<P extends DialogueLayout.Params> extends Abst
 
     public StateType makeChoice(int choice) {
         int originalChoiceIndex = this.menu.getAvailableChoices().get(choice).originalChoiceIndex();
-        StateType result = this.menu.makeChoice(originalChoiceIndex);
-        ClientPlayNetworking.send(new ChoiceSelectionPayload((byte) originalChoiceIndex));
-        return result;
+        // Not waiting for the server lets players click through dialogues regardless of latency
+        return this.menu.makeChoice(originalChoiceIndex, ClientPlayNetworking::send);
     }
 
     @Override
@@ -292,4 +344,12 @@ public class BlabberDialogueScreen<P extends DialogueLayout.Params> extends Abst
     protected boolean shouldNarrateNavigation() {
         return false;
     }
+
+    /**
+     * @param positionTransform converts illustration coordinates to screen coordinates
+     * @param illustrations     the renderers for the illustrations of the current state
+     * @param instructionLines  the word-wrapped instructions
+     * @param instructionsX     the X position of the instructions
+     */
+    private record RetainedContent(PositionTransform positionTransform, List<DialogueIllustrationRenderer<?>> illustrations, List<FormattedCharSequence> instructionLines, int instructionsX) { }
 }
@@ -47,6 +47,15 @@ public abstract class DialogueIllustrationRenderer<I extends DialogueIllustratio
      */
     public abstract void extractRenderState(GuiGraphicsExtractor graphics, Font textRenderer, PositionTransform positionTransform, int mouseX, int mouseY, float tickDelta);
 
+    /**
+     * Loads whatever this illustration needs to be drawn, ahead of it being shown for the first time.
+     *
+     * @return {@code true} if this illustration is ready to be drawn, {@code false} if prefetching should be tried again later
+     */
+    public boolean prefetch() {
+        return true;
+    }
+
     @FunctionalInterface
     public interface Factory<I extends DialogueIllustration> {
         DialogueIllustrationRenderer<I> create(I illustration);
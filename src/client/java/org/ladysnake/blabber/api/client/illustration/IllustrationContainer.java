@@ -17,6 +17,7 @@
  */
 package org.ladysnake.blabber.api.client.illustration;
 
+import org.jetbrains.annotations.Nullable;
 import org.ladysnake.blabber.api.illustration.DialogueIllustration;
 import org.ladysnake.blabber.impl.client.BlabberClient;
 
@@ -25,8 +26,13 @@ import java.util.Map;
 
 public class IllustrationContainer {
     private final Map<String, DialogueIllustrationRenderer<?>> illustrations = new HashMap<>();
+    private @Nullable Map<String, DialogueIllustration> source;
 
     public void setIllustrations(Map<String, DialogueIllustration> illustrations) {
+        // Screens set their illustrations again whenever they get resized
+        if (illustrations == this.source) return;
+
+        this.source = illustrations;
         this.illustrations.clear();
         illustrations.forEach((key, illustration) -> this.illustrations.put(key, BlabberClient.createRenderer(illustration)));
     }
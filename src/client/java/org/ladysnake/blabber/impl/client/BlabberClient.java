@@ -17,8 +17,11 @@
  */
 package org.ladysnake.blabber.impl.client;
 
+import com.google.common.hash.HashCode;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLevelEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientConfigurationNetworking;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.minecraft.client.gui.screens.MenuScreens;
 import net.minecraft.network.chat.Component;
@@ -32,13 +35,17 @@ import org.ladysnake.blabber.api.illustration.DialogueIllustrationType;
 import org.ladysnake.blabber.api.layout.DialogueLayout;
 import org.ladysnake.blabber.api.layout.DialogueLayoutType;
 import org.ladysnake.blabber.impl.client.illustrations.FakePlayerIllustrationRenderer;
+import org.ladysnake.blabber.impl.client.illustrations.FakePlayerProfiles;
 import org.ladysnake.blabber.impl.client.illustrations.IllustrationCollectionRenderer;
+import org.ladysnake.blabber.impl.client.illustrations.IllustrationEntityPool;
+import org.ladysnake.blabber.impl.client.illustrations.IllustrationPrefetcher;
 import org.ladysnake.blabber.impl.client.illustrations.ItemIllustrationRenderer;
 import org.ladysnake.blabber.impl.client.illustrations.NbtEntityIllustrationRenderer;
 import org.ladysnake.blabber.impl.client.illustrations.SelectedEntityIllustrationRenderer;
 import org.ladysnake.blabber.impl.client.illustrations.TextureIllustrationRenderer;
 import org.ladysnake.blabber.impl.common.BlabberRegistrar;
 import org.ladysnake.blabber.impl.common.DialogueRegistry;
+import org.ladysnake.blabber.impl.common.DialogueTemplateCache;
 import org.ladysnake.blabber.impl.common.DialogueScreenHandler;
 import org.ladysnake.blabber.impl.common.illustrations.DialogueIllustrationCollection;
 import org.ladysnake.blabber.impl.common.illustrations.DialogueIllustrationItem;
@@ -46,9 +53,12 @@ import org.ladysnake.blabber.impl.common.illustrations.DialogueIllustrationTextu
 import org.ladysnake.blabber.impl.common.illustrations.entity.DialogueIllustrationFakePlayer;
 import org.ladysnake.blabber.impl.common.illustrations.entity.DialogueIllustrationNbtEntity;
 import org.ladysnake.blabber.impl.common.illustrations.entity.DialogueIllustrationSelectorEntity;
+import org.ladysnake.blabber.impl.common.packets.ChoiceAcknowledgementPayload;
 import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
 import org.ladysnake.blabber.impl.common.packets.DialogueListPayload;
-import org.ladysnake.blabber.impl.common.packets.SelectedDialogueStatePayload;
+import org.ladysnake.blabber.impl.common.packets.DialogueStatesPayload;
+import org.ladysnake.blabber.impl.common.packets.TemplateCompressionPayload;
+import org.ladysnake.blabber.impl.common.packets.TemplateRequestPayload;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -68,16 +78,33 @@ public final class BlabberClient implements ClientModInitializer {
         BlabberScreenRegistry.register(BlabberRegistrar.CLASSIC_LAYOUT, BlabberDialogueScreen::new);
         BlabberScreenRegistry.register(BlabberRegistrar.RPG_LAYOUT, BlabberRpgDialogueScreen::new);
         MenuScreens.register(BlabberRegistrar.DIALOGUE_SCREEN_HANDLER, (MenuScreens.ScreenConstructor<DialogueScreenHandler, BlabberDialogueScreen<?>>) BlabberClient::createDialogueScreen);
-        ClientConfigurationNetworking.registerGlobalReceiver(DialogueListPayload.ID, (packet, ctx) -> DialogueRegistry.setClientIds(packet.dialogueIds()));
-        ClientPlayNetworking.registerGlobalReceiver(DialogueListPayload.ID, (packet, ctx) -> DialogueRegistry.setClientIds(packet.dialogueIds()));
+        ClientConfigurationNetworking.registerGlobalReceiver(DialogueListPayload.ID, (packet, ctx) -> DialogueRegistry.applyClientIds(packet));
+        // Registering this receiver is enough to let the server know templates can be sent compressed
+        ClientConfigurationNetworking.registerGlobalReceiver(TemplateCompressionPayload.ID, (packet, ctx) -> {});
+        ClientPlayNetworking.registerGlobalReceiver(DialogueListPayload.ID, (packet, ctx) -> DialogueRegistry.applyClientIds(packet));
+        // The server starts tracking sent templates from scratch with every new connection
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> DialogueTemplateCache.clearClientTemplates());
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
+            DialogueTemplateCache.clearClientTemplates();
+            IllustrationEntityPool.clear();
+            FakePlayerProfiles.clear();
+            IllustrationPrefetcher.resetCounts();
+        });
+        // Pooled entities hold on to the level they were created in, which would otherwise stay loaded until they get evicted
+        ClientLevelEvents.AFTER_CLIENT_LEVEL_CHANGE.register((client, level) -> IllustrationEntityPool.clear());
         ClientPlayNetworking.registerGlobalReceiver(ChoiceAvailabilityPayload.ID, (packet, ctx) -> {
             if (ctx.player().containerMenu instanceof DialogueScreenHandler dialogueScreenHandler) {
                 dialogueScreenHandler.handleAvailabilityUpdate(packet);
             }
         });
-        ClientPlayNetworking.registerGlobalReceiver(SelectedDialogueStatePayload.ID, (packet, ctx) -> {
+        ClientPlayNetworking.registerGlobalReceiver(DialogueStatesPayload.ID, (packet, ctx) -> {
+            if (ctx.player().containerMenu instanceof DialogueScreenHandler dialogueScreenHandler) {
+                dialogueScreenHandler.handleDialogueStates(packet);
+            }
+        });
+        ClientPlayNetworking.registerGlobalReceiver(ChoiceAcknowledgementPayload.ID, (packet, ctx) -> {
             if (ctx.player().containerMenu instanceof DialogueScreenHandler dialogueScreenHandler) {
-                dialogueScreenHandler.setCurrentState(packet.stateKey());
+                dialogueScreenHandler.handleChoiceAcknowledgement(packet);
             }
         });
     }
@@ -99,6 +126,13 @@ public final class BlabberClient implements ClientModInitializer {
     }
 
     private static <P extends DialogueLayout.Params> BlabberDialogueScreen<P> createDialogueScreen(DialogueScreenHandler handler, Inventory inventory, Component title) {
+        HashCode missingTemplate = handler.getMissingTemplate();
+        if (missingTemplate != null) {
+            // Something made the client cache drift from what the server thinks it holds
+            Blabber.LOGGER.warn("(Blabber) Server referenced unknown dialogue template {}, requesting it", missingTemplate);
+            ClientPlayNetworking.send(new TemplateRequestPayload(missingTemplate));
+        }
+
         @SuppressWarnings("unchecked") DialogueLayoutType<P> layoutType = (DialogueLayoutType<P>) handler.getLayout().type();
         @SuppressWarnings("unchecked") MenuScreens.ScreenConstructor<DialogueScreenHandler, BlabberDialogueScreen<P>> provider =
                 (MenuScreens.ScreenConstructor<DialogueScreenHandler, BlabberDialogueScreen<P>>) screenRegistry.get(layoutType);
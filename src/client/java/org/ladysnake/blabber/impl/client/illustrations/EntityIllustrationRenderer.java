@@ -40,11 +40,32 @@ public abstract class EntityIllustrationRenderer<I extends DialogueIllustrationE
 
     protected abstract @Nullable LivingEntity getRenderedEntity(Level world);
 
+    /**
+     * @return a key identifying the entity this renderer builds, allowing it to be {@linkplain IllustrationEntityPool pooled},
+     * or {@code null} if it should not be
+     */
+    protected @Nullable Object getPoolKey() {
+        return null;
+    }
+
+    private @Nullable LivingEntity createRenderedEntity(Level world) {
+        Object poolKey = this.getPoolKey();
+        return poolKey == null ? this.getRenderedEntity(world) : IllustrationEntityPool.getOrCreate(poolKey, world, this::getRenderedEntity);
+    }
+
+    @Override
+    public boolean prefetch() {
+        if (this.renderedEntity == null) {
+            this.renderedEntity = this.createRenderedEntity(Minecraft.getInstance().level);
+        }
+        return this.renderedEntity != null;
+    }
+
     @Override
     @Environment(EnvType.CLIENT)
     public void extractRenderState(GuiGraphicsExtractor graphics, Font textRenderer, PositionTransform positionTransform, int mouseX, int mouseY, float tickDelta) {
         LivingEntity e = this.renderedEntity == null
-                ? this.renderedEntity = this.getRenderedEntity(Minecraft.getInstance().level)
+                ? this.renderedEntity = this.createRenderedEntity(Minecraft.getInstance().level)
                 : this.renderedEntity;
 
         if (e == null) return; // Something went wrong creating the entity, so don't render.
@@ -23,6 +23,7 @@ import net.fabricmc.api.Environment;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.client.multiplayer.PlayerInfo;
 import net.minecraft.client.player.RemotePlayer;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.level.Level;
 import org.jetbrains.annotations.Nullable;
@@ -30,16 +31,27 @@ import org.ladysnake.blabber.impl.common.illustrations.entity.DialogueIllustrati
 import org.ladysnake.blabber.impl.mixin.PlayerEntityAccessor;
 import org.ladysnake.blabber.impl.mixin.client.AbstractClientPlayerAccessor;
 
+import java.util.Optional;
+
 public class FakePlayerIllustrationRenderer extends EntityIllustrationRenderer<DialogueIllustrationFakePlayer> {
     public FakePlayerIllustrationRenderer(DialogueIllustrationFakePlayer illustration) {
         super(illustration);
+        // Renderers get created when the dialogue screen opens, giving the skin a head start
+        FakePlayerProfiles.prepare(illustration.profile());
+    }
+
+    @Override
+    protected Object getPoolKey() {
+        return new PoolKey(this.illustration.profile(), this.illustration.modelOptionsOrDefault(), this.illustration.data());
     }
 
     @SuppressWarnings("UnreachableCode")
     @Environment(EnvType.CLIENT)
     @Override
     protected @Nullable LivingEntity getRenderedEntity(Level world) {
-        GameProfile profile = this.illustration.profile();
+        GameProfile profile = FakePlayerProfiles.getIfReady(this.illustration.profile());
+        if (profile == null) return null;   // show nothing rather than the default skin
+
         RemotePlayer fakePlayer = new RemotePlayer((ClientLevel) world, profile);
         this.illustration.data().ifPresent(nbt -> NbtEntityIllustrationRenderer.loadEntityData(world, fakePlayer, nbt));
         ((AbstractClientPlayerAccessor) fakePlayer).setPlayerInfo(new PlayerInfo(profile, false));
@@ -50,4 +62,6 @@ public class FakePlayerIllustrationRenderer extends EntityIllustrationRenderer<D
         fakePlayer.setMainArm(playerModelOptions.mainHand());
         return fakePlayer;
     }
+
+    private record PoolKey(GameProfile profile, DialogueIllustrationFakePlayer.PlayerModelOptions modelOptions, Optional<CompoundTag> data) { }
 }
@@ -0,0 +1,98 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.client.illustrations;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.mojang.authlib.GameProfile;
+import com.mojang.authlib.yggdrasil.ProfileResult;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.Util;
+import org.jetbrains.annotations.Nullable;
+import org.ladysnake.blabber.Blabber;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resolves the profiles and skins of fake players off-thread, before their illustrations get drawn.
+ *
+ * <p>Creating a fake player for a profile whose skin is not loaded makes it flicker with the default skin,
+ * and looking up missing textures on the render thread causes hitches.
+ */
+public final class FakePlayerProfiles {
+    private static final Map<GameProfile, CompletableFuture<GameProfile>> preparedProfiles = new HashMap<>();
+    private static SkinSource skinSource = FakePlayerProfiles::resolveWithSkinManager;
+
+    /**
+     * Starts resolving a profile if that was not done already
+     */
+    public static CompletableFuture<GameProfile> prepare(GameProfile profile) {
+        return preparedProfiles.computeIfAbsent(profile, p -> skinSource.resolve(p).exceptionally(t -> {
+            Blabber.LOGGER.warn("(Blabber) Failed to resolve skin for fake player {}", p.name(), t);
+            return p;
+        }));
+    }
+
+    /**
+     * @return the resolved version of {@code profile}, or {@code null} if it is not ready yet
+     */
+    public static @Nullable GameProfile getIfReady(GameProfile profile) {
+        return prepare(profile).getNow(null);
+    }
+
+    public static void clear() {
+        preparedProfiles.clear();
+    }
+
+    @VisibleForTesting
+    public static void setSkinSource(SkinSource source) {
+        skinSource = source;
+        clear();
+    }
+
+    @VisibleForTesting
+    public static void resetSkinSource() {
+        setSkinSource(FakePlayerProfiles::resolveWithSkinManager);
+    }
+
+    private static CompletableFuture<GameProfile> resolveWithSkinManager(GameProfile profile) {
+        Minecraft client = Minecraft.getInstance();
+        return CompletableFuture.supplyAsync(() -> fillProfile(client, profile), Util.nonCriticalIoPool())
+                .thenComposeAsync(resolved -> client.getSkinManager().get(resolved).thenApply(skin -> resolved), client);
+    }
+
+    private static GameProfile fillProfile(Minecraft client, GameProfile profile) {
+        if (!profile.properties().containsKey("textures")) {
+            // Profiles written in dialogue files often only have a name and id, the textures come from the session server
+            ProfileResult result = client.services().sessionService().fetchProfile(profile.id(), false);
+            if (result != null) return result.profile();
+        }
+        return profile;
+    }
+
+    @FunctionalInterface
+    public interface SkinSource {
+        /**
+         * @return a future completing with a profile whose skin is ready to be used
+         */
+        CompletableFuture<GameProfile> resolve(GameProfile profile);
+    }
+
+    private FakePlayerProfiles() {}
+}
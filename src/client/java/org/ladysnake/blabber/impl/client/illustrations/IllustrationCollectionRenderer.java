@@ -39,6 +39,15 @@ public class IllustrationCollectionRenderer extends DialogueIllustrationRenderer
         }
     }
 
+    @Override
+    public boolean prefetch() {
+        boolean ready = true;
+        for (DialogueIllustrationRenderer<?> i : elements) {
+            ready &= i.prefetch();
+        }
+        return ready;
+    }
+
     @Override
     public void extractRenderState(GuiGraphicsExtractor graphics, Font textRenderer, PositionTransform positionTransform, int mouseX, int mouseY, float tickDelta) {
         for (DialogueIllustrationRenderer<?> i : elements) {
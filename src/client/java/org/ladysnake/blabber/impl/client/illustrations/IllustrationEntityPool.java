@@ -0,0 +1,67 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.client.illustrations;
+
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.level.Level;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keeps the entities built for illustrations around, so that reopening a dialogue or resizing the screen
+ * does not construct and load them all over again.
+ *
+ * <p>Illustration entities never tick and are only ever rendered, which lets renderers with the same key share them.
+ */
+public final class IllustrationEntityPool {
+    public static final int CAPACITY = 32;
+    // Access order, so the entities of the least recently drawn illustrations get evicted first
+    private static final Map<Object, LivingEntity> entities = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, LivingEntity> eldest) {
+            return this.size() > CAPACITY;
+        }
+    };
+
+    /**
+     * @param key     an object describing everything that went into building the entity, with proper equality
+     * @param factory builds the entity if none is pooled for this key, may return {@code null} on failure
+     */
+    public static @Nullable LivingEntity getOrCreate(Object key, Level world, Function<Level, @Nullable LivingEntity> factory) {
+        LivingEntity entity = entities.get(key);
+        // Entities keep a reference to their world, the pool gets cleared when it is replaced but screens may outlive it
+        if (entity == null || entity.level() != world) {
+            entity = factory.apply(world);
+            if (entity != null) {
+                entities.put(key, entity);
+            } else {
+                entities.remove(key);
+            }
+        }
+        return entity;
+    }
+
+    public static void clear() {
+        entities.clear();
+    }
+
+    private IllustrationEntityPool() {}
+}
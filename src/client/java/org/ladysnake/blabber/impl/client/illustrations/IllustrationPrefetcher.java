@@ -0,0 +1,92 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.client.illustrations;
+
+import org.jetbrains.annotations.Nullable;
+import org.ladysnake.blabber.api.client.illustration.IllustrationContainer;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Warms up the illustrations of the states a dialogue screen may show next,
+ * so that the first frame of a new state does not have to load them.
+ */
+public final class IllustrationPrefetcher {
+    private static long hitCount;
+    private static long missCount;
+
+    private final IllustrationContainer illustrations;
+    private final Set<String> prefetched = new HashSet<>();
+    private @Nullable String shownState;
+
+    public IllustrationPrefetcher(IllustrationContainer illustrations) {
+        this.illustrations = illustrations;
+    }
+
+    /**
+     * @return how many illustrations were already prefetched when their state got shown
+     */
+    public static long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return how many illustrations had to be loaded on first draw
+     */
+    public static long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Resets the hit and miss counts, so that they only cover the current connection
+     */
+    public static void resetCounts() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    /**
+     * Records whether the illustrations of a state were prefetched, if that state was not already being shown
+     */
+    public void onStateShown(String stateKey, Collection<String> illustrationNames) {
+        if (Objects.equals(stateKey, this.shownState)) return;
+
+        this.shownState = stateKey;
+        for (String illustrationName : illustrationNames) {
+            if (this.prefetched.contains(illustrationName)) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+        }
+    }
+
+    /**
+     * Prefetches the given illustrations, retrying those which could not be loaded on earlier calls
+     */
+    public void prefetch(Collection<String> illustrationNames) {
+        for (String illustrationName : illustrationNames) {
+            if (!this.prefetched.contains(illustrationName) && this.illustrations.getRenderer(illustrationName).prefetch()) {
+                this.prefetched.add(illustrationName);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.ladysnake.blabber.impl.client.illustrations;
 
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.util.ProblemReporter;
 import net.minecraft.world.entity.EntitySpawnReason;
 import net.minecraft.world.entity.EntityType;
@@ -29,11 +30,18 @@ import org.jetbrains.annotations.Nullable;
 import org.ladysnake.blabber.Blabber;
 import org.ladysnake.blabber.impl.common.illustrations.entity.DialogueIllustrationNbtEntity;
 
+import java.util.Optional;
+
 public class NbtEntityIllustrationRenderer extends EntityIllustrationRenderer<DialogueIllustrationNbtEntity> {
     public NbtEntityIllustrationRenderer(DialogueIllustrationNbtEntity illustration) {
         super(illustration);
     }
 
+    @Override
+    protected Object getPoolKey() {
+        return new PoolKey(this.illustration.id(), this.illustration.data());
+    }
+
     @Override
     protected @Nullable LivingEntity getRenderedEntity(Level world) {
         EntityType<?> entityType = BuiltInRegistries.ENTITY_TYPE.getOptional(illustration.id()).orElse(null);
@@ -54,4 +62,6 @@ public class NbtEntityIllustrationRenderer extends EntityIllustrationRenderer<Di
             entity.load(TagValueInput.create(logging, world.registryAccess(), nbt));
         }
     }
+
+    private record PoolKey(ResourceKey<EntityType<?>> entityType, Optional<CompoundTag> data) { }
 }
@@ -17,6 +17,7 @@
  */
 package org.ladysnake.blabber.impl.client.illustrations;
 
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.Font;
 import net.minecraft.client.gui.GuiGraphicsExtractor;
 import net.minecraft.client.renderer.RenderPipelines;
@@ -29,6 +30,13 @@ public class TextureIllustrationRenderer extends DialogueIllustrationRenderer<Di
         super(illustration);
     }
 
+    @Override
+    public boolean prefetch() {
+        // Loads and uploads the texture if it was not already
+        Minecraft.getInstance().getTextureManager().getTexture(illustration.texture());
+        return true;
+    }
+
     @Override
     public void extractRenderState(GuiGraphicsExtractor graphics, Font textRenderer, PositionTransform positionTransform, int mouseX, int mouseY, float tickDelta) {
         graphics.blit(
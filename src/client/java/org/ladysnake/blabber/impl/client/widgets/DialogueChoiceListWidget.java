@@ -31,6 +31,7 @@ import net.minecraft.client.renderer.RenderPipelines;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.Identifier;
 import net.minecraft.util.ARGB;
+import net.minecraft.util.FormattedCharSequence;
 import net.minecraft.util.Mth;
 import org.jetbrains.annotations.Nullable;
 import org.ladysnake.blabber.api.client.illustration.IllustrationContainer;
@@ -40,7 +41,10 @@ import org.ladysnake.blabber.impl.common.model.IllustrationAnchor;
 import org.ladysnake.blabber.impl.common.model.StateType;
 import org.lwjgl.glfw.GLFW;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.function.IntFunction;
 
 import static org.ladysnake.blabber.api.client.BlabberDialogueScreen.DIALOGUE_ARROWS;
@@ -71,6 +75,10 @@ public class DialogueChoiceListWidget extends AbstractScrollArea {
 
     private final PositionTransform positionTransform = new PositionTransform(new EnumMap<>(IllustrationAnchor.class));
     protected final IllustrationContainer illustrations;
+    /**
+     * Word-wrapped choices, computed when first needed after the choices or the width change
+     */
+    private @Nullable ChoiceLayout layout;
 
     public DialogueChoiceListWidget(int x, int y, int width, int height, Component message, Font textRenderer, IntFunction<@Nullable StateType> confirmChoice, IllustrationContainer illustrations) {
         super(x, y, width, height, message, defaultSettings(9));
@@ -85,6 +93,7 @@ public class DialogueChoiceListWidget extends AbstractScrollArea {
 
     public void setChoices(ImmutableList<AvailableChoice> choices) {
         this.choices = choices;
+        this.layout = null;
     }
 
     public int getGap() {
@@ -96,6 +105,7 @@ public class DialogueChoiceListWidget extends AbstractScrollArea {
      */
     public void setGap(int gap) {
         this.gap = gap;
+        this.layout = null;
     }
 
     public int getSelectionIconGap() {
@@ -146,21 +156,30 @@ public class DialogueChoiceListWidget extends AbstractScrollArea {
         this.lockIconTexture = lockIconTexture;
     }
 
+    protected ChoiceLayout getLayout() {
+        ChoiceLayout layout = this.layout;
+        int textWidth = this.computeTextWidth();
+        if (layout == null || layout.textWidth() != textWidth || layout.gap() != this.gap) {
+            layout = ChoiceLayout.compute(this.choices, this.textRenderer, textWidth, this.gap);
+            this.layout = layout;
+        }
+        return layout;
+    }
+
     @Override
     public void mouseMoved(double mouseX, double mouseY) {
-        int y = this.getY() + this.topMargin;
-        for (int i = 0; i < choices.size(); i++) {
-            Component choice = choices.get(i).text();
-            int strHeight = this.textRenderer.wordWrapHeight(choice, this.computeTextWidth());
-            int strWidth = strHeight == textRenderer.lineHeight ? this.textRenderer.width(choice) : this.computeTextWidth();
-            if (this.shouldSelectChoice(mouseX, mouseY, y, strHeight, strWidth)) {
+        ChoiceLayout layout = this.getLayout();
+        int listY = this.getY() + this.topMargin;
+        int i = layout.choiceAt((int) Math.floor(mouseY) - listY);
+        if (i >= 0) {
+            int choiceY = listY + layout.offset(i);
+            if (this.shouldSelectChoice(mouseX, mouseY, choiceY, layout.height(i), layout.width(i))) {
                 this.selectedChoice = i;
                 this.hoveringChoice = true;
                 return;
             }
-            y += strHeight + gap;
-            this.hoveringChoice = false;
         }
+        this.hoveringChoice = false;
     }
 
     protected boolean shouldSelectChoice(double mouseX, double mouseY, int choiceY, int choiceHeight, int choiceWidth) {
@@ -227,11 +246,7 @@ public class DialogueChoiceListWidget extends AbstractScrollArea {
     }
 
     protected int computeContentHeight() {
-        int y = 0;
-        for (AvailableChoice choice : getChoices()) {
-            y += textRenderer.wordWrapHeight(choice.text(), computeTextWidth()) + getGap();
-        }
-        return y;
+        return this.getLayout().contentHeight();
     }
 
     protected int computeTextWidth() {
@@ -255,15 +270,19 @@ public class DialogueChoiceListWidget extends AbstractScrollArea {
     }
 
     protected void extractContents(GuiGraphicsExtractor context, int mouseX, int mouseY, float deltaTicks) {
+        ChoiceLayout layout = this.getLayout();
         int x = this.getX();
-        int y = this.getY();
 
         for (int i = 0; i < choices.size(); i++) {
             AvailableChoice choice = choices.get(i);
-            int strHeight = this.textRenderer.wordWrapHeight(choice.text(), computeTextWidth());
+            int y = this.getY() + layout.offset(i);
+            int strHeight = layout.height(i);
             boolean selected = i == this.selectedChoice;
             int choiceColor = choice.unavailabilityMessage().isPresent() ? lockedChoiceColor : selected ? selectedChoiceColor : this.choiceColor;
-            context.textWithWordWrap(this.textRenderer, choice.text(), x + selectionIconSize + selectionIconGap, y, this.computeTextWidth(), ARGB.opaque(choiceColor), false);
+            List<FormattedCharSequence> lines = layout.lines(i);
+            for (int line = 0; line < lines.size(); line++) {
+                context.text(this.textRenderer, lines.get(line), x + selectionIconSize + selectionIconGap, y + line * this.textRenderer.lineHeight, ARGB.opaque(choiceColor), false);
+            }
 
             positionTransform.setControlPoints(x, y, x + this.getWidth(), y + strHeight);
 
@@ -279,7 +298,6 @@ public class DialogueChoiceListWidget extends AbstractScrollArea {
                     context.blitSprite(RenderPipelines.GUI_TEXTURED, selectionIconTexture, x, y + selectionIconMarginTop, selectionIconSize, selectionIconSize);
                 }
             }
-            y += strHeight + getGap();
         }
     }
 
@@ -287,4 +305,57 @@ public class DialogueChoiceListWidget extends AbstractScrollArea {
     protected void updateWidgetNarration(NarrationElementOutput builder) {
         builder.add(NarratedElementType.TITLE, this.choices.get(this.selectedChoice).text());
     }
+
+    /**
+     * Positions of the choices in the list, relative to its top
+     *
+     * @param lines   the word-wrapped text of each choice
+     * @param widths  the width of the text of each choice, or the full text width if it wraps
+     * @param offsets the Y offset of each choice, followed by the height of the whole list
+     */
+    protected record ChoiceLayout(int textWidth, int gap, int lineHeight, List<List<FormattedCharSequence>> lines, int[] widths, int[] offsets) {
+        static ChoiceLayout compute(List<AvailableChoice> choices, Font textRenderer, int textWidth, int gap) {
+            List<List<FormattedCharSequence>> lines = new ArrayList<>(choices.size());
+            int[] widths = new int[choices.size()];
+            int[] offsets = new int[choices.size() + 1];
+            for (int i = 0; i < choices.size(); i++) {
+                List<FormattedCharSequence> choiceLines = textRenderer.split(choices.get(i).text(), textWidth);
+                lines.add(choiceLines);
+                widths[i] = choiceLines.size() == 1 ? textRenderer.width(choiceLines.getFirst()) : textWidth;
+                offsets[i + 1] = offsets[i] + choiceLines.size() * textRenderer.lineHeight + gap;
+            }
+            return new ChoiceLayout(textWidth, gap, textRenderer.lineHeight, lines, widths, offsets);
+        }
+
+        public List<FormattedCharSequence> lines(int choice) {
+            return this.lines.get(choice);
+        }
+
+        public int width(int choice) {
+            return this.widths[choice];
+        }
+
+        public int height(int choice) {
+            return this.lines.get(choice).size() * this.lineHeight;
+        }
+
+        public int offset(int choice) {
+            return this.offsets[choice];
+        }
+
+        public int contentHeight() {
+            return this.offsets[this.offsets.length - 1];
+        }
+
+        /**
+         * @param y a position relative to the top of the list
+         * @return the index of the choice whose slot, gap included, contains {@code y}, or -1
+         */
+        public int choiceAt(int y) {
+            if (y < 0 || y >= this.contentHeight()) return -1;
+            int index = Arrays.binarySearch(this.offsets, y);
+            // On a miss, binarySearch returns -(insertion point) - 1, and the choice starts just before the insertion point
+            return index >= 0 ? index : -index - 2;
+        }
+    }
 }
@@ -17,7 +17,6 @@
  */
 package org.ladysnake.blabber.impl.client.widgets;
 
-import com.google.common.collect.ImmutableList;
 import net.minecraft.client.gui.Font;
 import net.minecraft.client.gui.GuiGraphicsExtractor;
 import net.minecraft.client.renderer.RenderPipelines;
@@ -26,7 +25,6 @@ import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix3x2f;
 import org.ladysnake.blabber.api.client.illustration.IllustrationContainer;
 import org.ladysnake.blabber.impl.client.HorizontalGradientGuiElementRenderState;
-import org.ladysnake.blabber.impl.common.machine.AvailableChoice;
 import org.ladysnake.blabber.impl.common.model.StateType;
 import org.ladysnake.blabber.impl.mixin.client.GuiGraphicsExtractorAccessor;
 
@@ -47,14 +45,12 @@ public class RpgDialogueChoiceListWidget extends DialogueChoiceListWidget {
     }
 
     public void renderWidgetBackground(GuiGraphicsExtractor context) {
-        int y = this.getY() + this.topMargin / 2;
-        ImmutableList<AvailableChoice> availableChoices = this.getChoices();
-        for (int i = 0; i < availableChoices.size(); i++) {
-            AvailableChoice choice = availableChoices.get(i);
-            int strHeight = this.textRenderer.wordWrapHeight(choice.text(), this.computeTextWidth());
+        ChoiceLayout layout = this.getLayout();
+        for (int i = 0; i < this.getChoices().size(); i++) {
+            int y = this.getY() + this.topMargin / 2 + layout.offset(i);
+            int strHeight = layout.height(i);
             fillHorizontalGradient(context, this.getX() + this.selectionIconSize + this.selectionIconGap - 2, y, this.getX() + this.width, y + strHeight, 0xc0101010, 0x80101010);
             if (i == selectedChoice) this.selectionIconMarginTop = ((strHeight - textRenderer.lineHeight) / 2) - 4;
-            y += strHeight + getGap();
         }
     }
 
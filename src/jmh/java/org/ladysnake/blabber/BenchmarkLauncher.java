@@ -0,0 +1,42 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks from within the test launcher, which loads the game and the mod through Fabric Loader.
+ *
+ * <p>JMH cannot fork a JVM that does the same, so every benchmark runs in this one.
+ */
+public class BenchmarkLauncher {
+    @Test
+    public void runBenchmarks() throws RunnerException, CommandLineOptionException {
+        String options = System.getProperty("blabber.jmh.options", "").trim();
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(options.isEmpty() ? new String[0] : options.split("\\s+")))
+                .forks(0)
+                .build()
+        ).run();
+    }
+}
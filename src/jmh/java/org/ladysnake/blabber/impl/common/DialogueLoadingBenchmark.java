@@ -0,0 +1,63 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.packs.resources.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading dialogue packs on the reload thread alone and spread over the common pool
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DialogueLoadingBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int dialogueCount;
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Map<Identifier, Resource> resources;
+
+    @Setup
+    public void setup() {
+        SyntheticDialogues.bootstrap();
+        this.resources = SyntheticDialogues.pack(this.dialogueCount, 20);
+    }
+
+    @Benchmark
+    public Map<Identifier, ?> load() {
+        // Nothing gets reused from a previous reload, so every file is decoded and validated
+        return DialogueLoader.loadDialogues(this.resources, Map.of(), this.parallel);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import com.google.common.hash.HashCode;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.mojang.serialization.JsonOps;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.resources.Identifier;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the screen opening data of the test mod's dialogues, when the client already has the template and when it does not.
+ *
+ * <p>The size of each variant, and so the bytes saved by a cache hit, gets printed during setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DialogueOpeningBenchmark {
+    @Param({"illustration_tests", "mountain_king", "perception_check", "remnant_choice", "rpg_layout_gametest"})
+    public String dialogue;
+
+    private RegistryFriendlyByteBuf buf;
+    private DialogueMenuProvider.DialogueOpeningData cacheMiss;
+    private DialogueMenuProvider.DialogueOpeningData compressedCacheMiss;
+    private DialogueMenuProvider.DialogueOpeningData cacheHit;
+
+    @Setup
+    public void setup() {
+        SyntheticDialogues.bootstrap();
+        RegistryAccess registries = RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY);
+        this.buf = new RegistryFriendlyByteBuf(Unpooled.buffer(), registries);
+        DialogueTemplate template = DialogueTemplate.CODEC.parse(JsonOps.INSTANCE, new Gson().fromJson(new InputStreamReader(
+                Objects.requireNonNull(DialogueOpeningBenchmark.class.getResourceAsStream("/data/babblings/blabber/dialogues/" + this.dialogue + ".json")), StandardCharsets.UTF_8
+        ), JsonElement.class)).getOrThrow();
+        HashCode hash = DialogueTemplateCache.hash(template, registries);
+        Identifier id = Identifier.fromNamespaceAndPath("babblings", this.dialogue);
+
+        this.cacheMiss = openingData(id, new DialogueTemplateCache.SyncedTemplate(hash, Optional.of(template), false), template);
+        this.compressedCacheMiss = openingData(id, new DialogueTemplateCache.SyncedTemplate(hash, Optional.of(template), true), template);
+        this.cacheHit = openingData(id, new DialogueTemplateCache.SyncedTemplate(hash, Optional.empty(), false), template);
+
+        int missSize = this.encode(this.cacheMiss);
+        int compressedMissSize = this.encode(this.compressedCacheMiss);
+        int hitSize = this.encode(this.cacheHit);
+        System.out.printf("%s: %d bytes with the template (%d compressed), %d bytes without, %d bytes saved per cached opening%n",
+                this.dialogue, missSize, compressedMissSize, hitSize, missSize - hitSize);
+    }
+
+    private static DialogueMenuProvider.DialogueOpeningData openingData(Identifier id, DialogueTemplateCache.SyncedTemplate syncedTemplate, DialogueTemplate template) {
+        return new DialogueMenuProvider.DialogueOpeningData(id, syncedTemplate, List.of(template.start()), 0, Optional.empty(), new ChoiceAvailabilityPayload());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.buf.release();
+    }
+
+    private int encode(DialogueMenuProvider.DialogueOpeningData data) {
+        this.buf.clear();
+        DialogueMenuProvider.DialogueOpeningData.PACKET_CODEC.encode(this.buf, data);
+        return this.buf.readableBytes();
+    }
+
+    @Benchmark
+    public int cacheMiss() {
+        return this.encode(this.cacheMiss);
+    }
+
+    @Benchmark
+    public int compressedCacheMiss() {
+        return this.encode(this.compressedCacheMiss);
+    }
+
+    @Benchmark
+    public int cacheHit() {
+        return this.encode(this.cacheHit);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.packs.resources.Resource;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+import org.ladysnake.blabber.impl.common.validation.DialogueValidator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the peak heap usage of decoding each dialogue file as it is read,
+ * and of reading every file into a JSON tree before decoding any of them.
+ *
+ * <p>Each load runs on its own right after a collection, so that peak usage only reflects that load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class DialoguePackHeapBenchmark {
+    private static final Gson GSON = new Gson();
+    /**
+     * Along with the size of the generated states, makes for a pack of about 50 MB
+     */
+    private static final int DIALOGUE_COUNT = 1000;
+    private static final int STATE_COUNT = 150;
+
+    private Map<Identifier, Resource> resources;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticDialogues.bootstrap();
+        this.resources = SyntheticDialogues.pack(DIALOGUE_COUNT, STATE_COUNT);
+        long packSize = 0;
+        for (Resource resource : this.resources.values()) {
+            packSize += resource.open().readAllBytes().length;
+        }
+        System.out.printf("Generated a pack of %d dialogues for %.1f MB%n", DIALOGUE_COUNT, packSize / 1e6);
+    }
+
+    @Benchmark
+    public Object decodeAsRead(HeapUsage heap) {
+        Map<Identifier, ?> loaded = DialogueLoader.loadDialogues(this.resources, Map.of(), false);
+        heap.record();
+        return loaded;
+    }
+
+    /**
+     * What loading used to do, with every JSON tree kept until all files were read
+     */
+    @Benchmark
+    public Object readAllThenDecode(HeapUsage heap) throws IOException {
+        Map<Identifier, JsonObject> trees = new LinkedHashMap<>();
+        for (Map.Entry<Identifier, Resource> entry : this.resources.entrySet()) {
+            try (Reader reader = new InputStreamReader(entry.getValue().open(), StandardCharsets.UTF_8)) {
+                trees.put(entry.getKey(), GSON.fromJson(reader, JsonObject.class));
+            }
+        }
+        Map<Identifier, DialogueTemplate> loaded = new LinkedHashMap<>();
+        for (Map.Entry<Identifier, JsonObject> tree : trees.entrySet()) {
+            DialogueTemplate template = SyntheticDialogues.decode(tree.getValue());
+            DialogueValidator.validateStructure(template);
+            loaded.put(tree.getKey(), template);
+        }
+        heap.record();
+        return loaded;
+    }
+
+    /**
+     * Heap used on top of what was live before loading, summed over heap pools.
+     *
+     * <p>Pools do not all peak at the same time, so this is an upper bound.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapUsage {
+        public long peakHeapMegabytes;
+        private long baseline;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            System.gc();
+            this.baseline = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                    this.baseline += pool.getUsage().getUsed();
+                }
+            }
+        }
+
+        void record() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            this.peakHeapMegabytes = (peak - this.baseline) >> 20;
+        }
+    }
+}
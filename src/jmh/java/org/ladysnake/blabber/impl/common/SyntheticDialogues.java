@@ -0,0 +1,108 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.mojang.serialization.JsonOps;
+import net.minecraft.SharedConstants;
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.server.packs.resources.Resource;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates dialogues of arbitrary size for benchmarks.
+ *
+ * <p>States form a loop, each with a choice leading to the next state, one skipping a state and one leaving the dialogue.
+ */
+public final class SyntheticDialogues {
+    public static final String CONDITION = "blabber:benchmark";
+    private static final String FILLER = "The wind howls through the pass as the traveller weighs their words, for the keeper of the gate is not known for patience.";
+
+    public static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    /**
+     * @param conditional whether choices skipping a state are only available if the {@link #CONDITION} predicate passes
+     */
+    public static JsonObject generate(int index, int stateCount, boolean conditional) {
+        JsonObject states = new JsonObject();
+        for (int i = 0; i < stateCount; i++) {
+            JsonArray choices = new JsonArray();
+            choices.add(choice("Go on", "state_" + (i + 1) % stateCount, false));
+            choices.add(choice("Skip ahead", "state_" + (i + 2) % stateCount, conditional));
+            choices.add(choice("Leave", "end", false));
+            JsonObject state = new JsonObject();
+            state.addProperty("text", "Dialogue #" + index + ", state " + i + ". " + FILLER);
+            state.add("choices", choices);
+            states.add("state_" + i, state);
+        }
+        JsonObject end = new JsonObject();
+        end.addProperty("type", "end_dialogue");
+        states.add("end", end);
+
+        JsonObject dialogue = new JsonObject();
+        dialogue.addProperty("start_at", "state_0");
+        dialogue.add("states", states);
+        return dialogue;
+    }
+
+    private static JsonObject choice(String text, String next, boolean conditional) {
+        JsonObject choice = new JsonObject();
+        choice.addProperty("text", text);
+        choice.addProperty("next", next);
+        if (conditional) {
+            JsonObject whenUnavailable = new JsonObject();
+            whenUnavailable.addProperty("display", "grayed_out");
+            JsonObject condition = new JsonObject();
+            condition.addProperty("predicate", CONDITION);
+            condition.add("when_unavailable", whenUnavailable);
+            choice.add("only_if", condition);
+        }
+        return choice;
+    }
+
+    public static DialogueTemplate decode(JsonObject json) {
+        return DialogueTemplate.CODEC.parse(JsonOps.INSTANCE, json).getOrThrow();
+    }
+
+    /**
+     * @return dialogue files as the resource manager would list them
+     */
+    static Map<Identifier, Resource> pack(int dialogueCount, int stateCount) {
+        Map<Identifier, Resource> resources = new LinkedHashMap<>();
+        for (int i = 0; i < dialogueCount; i++) {
+            byte[] content = generate(i, stateCount, false).toString().getBytes(StandardCharsets.UTF_8);
+            resources.put(
+                    Identifier.fromNamespaceAndPath("benchmark", DialogueLoader.BLABBER_DIALOGUES_PATH + "/dialogue_" + i + ".json"),
+                    new Resource(null, () -> new ByteArrayInputStream(content))
+            );
+        }
+        return resources;
+    }
+
+    private SyntheticDialogues() {}
+}
@@ -0,0 +1,97 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.mojang.serialization.JsonOps;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long compressing and inflating the test mod's encoded dialogue templates takes.
+ *
+ * <p>The compression ratio of each template gets printed during setup.
+ * Templates under the {@linkplain TemplateCompression#THRESHOLD threshold} are never compressed,
+ * so their decompression benchmark only measures the size check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TemplateCompressionBenchmark {
+    @Param({"illustration_tests", "mountain_king", "perception_check", "remnant_choice", "rpg_layout_gametest"})
+    public String dialogue;
+
+    private byte[] encoded;
+    private byte[] compressed;
+
+    @Setup
+    public void setup() {
+        SyntheticDialogues.bootstrap();
+        RegistryAccess registries = RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY);
+        DialogueTemplate template = DialogueTemplate.CODEC.parse(JsonOps.INSTANCE, new Gson().fromJson(new InputStreamReader(
+                Objects.requireNonNull(TemplateCompressionBenchmark.class.getResourceAsStream("/data/babblings/blabber/dialogues/" + this.dialogue + ".json")), StandardCharsets.UTF_8
+        ), JsonElement.class)).getOrThrow();
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(), registries);
+        try {
+            DialogueTemplate.PACKET_CODEC.encode(buf, template);
+            this.encoded = new byte[buf.readableBytes()];
+            buf.readBytes(this.encoded);
+        } finally {
+            buf.release();
+        }
+        this.compressed = TemplateCompression.compress(this.encoded);
+
+        if (this.compressed == null) {
+            System.out.printf("%s: %d bytes, not compressed%n", this.dialogue, this.encoded.length);
+        } else {
+            System.out.printf("%s: %d -> %d bytes (%.0f%%)%n",
+                    this.dialogue, this.encoded.length, this.compressed.length, 100.0 * this.compressed.length / this.encoded.length);
+        }
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return TemplateCompression.compress(this.encoded);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return this.compressed == null ? this.encoded : TemplateCompression.decompress(this.compressed, this.encoded.length);
+    }
+}
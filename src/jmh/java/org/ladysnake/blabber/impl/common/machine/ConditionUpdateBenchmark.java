@@ -0,0 +1,102 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.machine;
+
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.serialization.Lifecycle;
+import net.minecraft.core.HolderGetter;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.Identifier;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.storage.loot.LootContext;
+import net.minecraft.world.level.storage.loot.LootParams;
+import net.minecraft.world.level.storage.loot.parameters.LootContextParamSets;
+import net.minecraft.world.level.storage.loot.predicates.AllOfCondition;
+import net.minecraft.world.level.storage.loot.predicates.LootItemCondition;
+import org.jetbrains.annotations.Nullable;
+import org.ladysnake.blabber.Blabber;
+import org.ladysnake.blabber.impl.common.SyntheticDialogues;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures condition updates in which no condition changes, which should not allocate anything.
+ *
+ * <p>Run with {@code -prof gc} to check the allocation rate. Every choice in scope gets tested on every update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConditionUpdateBenchmark {
+    private DialogueStateMachine dialogue;
+    private HolderGetter.Provider predicates;
+    private LootContext context;
+    private int tick;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException, CommandSyntaxException {
+        SyntheticDialogues.bootstrap();
+        DialogueTemplate template = SyntheticDialogues.decode(SyntheticDialogues.generate(0, 10, true));
+        List<String> stateTable = new ArrayList<>(template.states().keySet());
+        this.dialogue = new DialogueStateMachine(Blabber.id("benchmark"), template, stateTable, stateTable.indexOf(template.start()));
+
+        // A condition that always passes, so that only the first update changes anything
+        MappedRegistry<LootItemCondition> registry = new MappedRegistry<>(Registries.PREDICATE, Lifecycle.stable());
+        Registry.register(registry, ResourceKey.create(Registries.PREDICATE, Identifier.parse(SyntheticDialogues.CONDITION)), AllOfCondition.allOf(List.of()));
+        registry.freeze();
+        this.predicates = HolderLookup.Provider.create(Stream.of(registry));
+
+        // Loot contexts normally come from a level, which benchmarks do not have
+        Constructor<LootContext> contextConstructor = LootContext.class.getDeclaredConstructor(LootParams.class, RandomSource.class, HolderGetter.Provider.class);
+        contextConstructor.setAccessible(true);
+        this.context = contextConstructor.newInstance(
+                new LootParams.Builder((ServerLevel) null).create(LootContextParamSets.EMPTY),
+                RandomSource.create(),
+                this.predicates
+        );
+
+        this.dialogue.updateConditions(this.context, this.predicates, this.tick++, 0);
+    }
+
+    @Benchmark
+    public @Nullable ChoiceAvailabilityPayload updateConditions() throws CommandSyntaxException {
+        return this.dialogue.updateConditions(this.context, this.predicates, this.tick++, 0);
+    }
+}
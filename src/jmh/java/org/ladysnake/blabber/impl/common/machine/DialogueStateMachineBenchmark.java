@@ -0,0 +1,98 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.machine;
+
+import org.ladysnake.blabber.Blabber;
+import org.ladysnake.blabber.impl.common.SyntheticDialogues;
+import org.ladysnake.blabber.impl.common.model.DialogueState;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures moving through a dialogue, next to the string-keyed lookups the state machine did before it used a compiled graph
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DialogueStateMachineBenchmark {
+    @Param({"10", "1000"})
+    public int stateCount;
+
+    private Map<String, DialogueState> states;
+    private DialogueStateMachine dialogue;
+    private String[] stateKeys;
+    private int nextState;
+    private String currentStateKey;
+
+    @Setup
+    public void setup() {
+        SyntheticDialogues.bootstrap();
+        DialogueTemplate template = SyntheticDialogues.decode(SyntheticDialogues.generate(0, this.stateCount, false));
+        List<String> stateTable = new ArrayList<>(template.states().keySet());
+        this.states = template.states();
+        this.dialogue = new DialogueStateMachine(Blabber.id("benchmark"), template, stateTable, stateTable.indexOf(template.start()));
+        this.stateKeys = new String[this.stateCount];
+        for (int i = 0; i < this.stateCount; i++) {
+            this.stateKeys[i] = "state_" + i;
+        }
+        this.currentStateKey = template.start();
+    }
+
+    /**
+     * Goes around the loop of states forever
+     */
+    @Benchmark
+    public ChoiceResult choose() {
+        return this.dialogue.choose(0);
+    }
+
+    @Benchmark
+    public DialogueState selectState() {
+        this.nextState = (this.nextState + 1) % this.stateCount;
+        return this.dialogue.selectState(this.stateKeys[this.nextState]);
+    }
+
+    /**
+     * The lookups a choice used to take: getting the current state, then checking and getting the next one
+     */
+    @Benchmark
+    public DialogueState stringKeyedLookups() {
+        String next = this.states.get(this.currentStateKey).choices().get(0).next();
+        if (!this.states.containsKey(next)) {
+            throw new IllegalArgumentException(next + " is not an available dialogue state");
+        }
+        this.currentStateKey = next;
+        return this.states.get(next);
+    }
+}
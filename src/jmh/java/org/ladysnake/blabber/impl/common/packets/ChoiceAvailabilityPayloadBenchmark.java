@@ -0,0 +1,114 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.packets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2BooleanMap;
+import it.unimi.dsi.fastutil.ints.Int2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import org.ladysnake.blabber.impl.common.SyntheticDialogues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the bitset encoding of choice availability updates with the previous one,
+ * which wrote a VarInt index and a boolean byte for every updated choice.
+ *
+ * <p>The size of both encodings gets printed during setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ChoiceAvailabilityPayloadBenchmark {
+    /**
+     * The previous encoding, with state ids rather than state keys so that only the encoding of choices differs
+     */
+    private static final StreamCodec<ByteBuf, Int2ObjectMap<Int2BooleanMap>> PER_CHOICE_CODEC = ByteBufCodecs.map(
+            Int2ObjectOpenHashMap::new,
+            ByteBufCodecs.VAR_INT,
+            ByteBufCodecs.map(Int2BooleanOpenHashMap::new, ByteBufCodecs.VAR_INT, ByteBufCodecs.BOOL)
+    );
+
+    @Param({"1", "8"})
+    public int stateCount;
+    @Param({"2", "4", "16"})
+    public int choicesPerState;
+    /**
+     * Whether every choice got updated, as when opening a dialogue, or only the last one of each state, as when a condition flips
+     */
+    @Param({"true", "false"})
+    public boolean fullUpdate;
+
+    private ByteBuf buf;
+    private ChoiceAvailabilityPayload payload;
+
+    @Setup
+    public void setup() {
+        SyntheticDialogues.bootstrap();
+        this.buf = Unpooled.buffer();
+        this.payload = new ChoiceAvailabilityPayload();
+        for (int state = 0; state < this.stateCount; state++) {
+            if (this.fullUpdate) {
+                for (int choice = 0; choice < this.choicesPerState; choice++) {
+                    this.payload.markUpdated(state, choice, choice % 2 == 0);
+                }
+            } else {
+                this.payload.markUpdated(state, this.choicesPerState - 1, true);
+            }
+        }
+
+        System.out.printf("%d states of %d choices, %s: %d bytes as bitsets, %d bytes per choice%n",
+                this.stateCount, this.choicesPerState, this.fullUpdate ? "all updated" : "last updated", this.bitsets(), this.perChoice());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.buf.release();
+    }
+
+    @Benchmark
+    public int bitsets() {
+        this.buf.clear();
+        ChoiceAvailabilityPayload.PACKET_CODEC.encode(this.buf, this.payload);
+        return this.buf.readableBytes();
+    }
+
+    @Benchmark
+    public int perChoice() {
+        this.buf.clear();
+        PER_CHOICE_CODEC.encode(this.buf, this.payload.updatedChoices());
+        return this.buf.readableBytes();
+    }
+}
@@ -35,6 +35,7 @@ import org.ladysnake.blabber.api.illustration.DialogueIllustrationType;
 import org.ladysnake.blabber.api.layout.DialogueLayoutType;
 import org.ladysnake.blabber.impl.common.BlabberRegistrar;
 import org.ladysnake.blabber.impl.common.DialogueInitializationException;
+import org.ladysnake.blabber.impl.common.DialogueOpeningScheduler;
 import org.ladysnake.blabber.impl.common.PlayerDialogueTracker;
 import org.ladysnake.blabber.impl.common.actions.CommandDialogueAction;
 import org.ladysnake.blabber.impl.common.commands.BlabberCommand;
@@ -48,6 +49,8 @@ import org.ladysnake.blabber.impl.common.machine.DialogueStateMachine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+
 public final class Blabber implements ModInitializer {
 	public static final String MOD_ID = "blabber";
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
@@ -97,6 +100,27 @@ public final class Blabber implements ModInitializer {
 		}
 	}
 
+	/**
+	 * Starts a dialogue for many players at once
+	 *
+	 * <p>This is equivalent to calling {@link #startDialogue(ServerPlayer, Identifier, Entity)} for each player,
+	 * except that the work is shared between players where possible and spread over several ticks.
+	 * The dialogue starts right away for the first few players, and within the next ticks for the others.
+	 *
+	 * @param players the players for whom to initiate a dialogue
+	 * @param id the identifier for the dialogue
+	 * @param interlocutor the entity with which the players are conversing
+	 * @throws IllegalArgumentException if {@code id} is not a valid dialogue in this game instance
+	 * @throws DialogueInitializationException if the dialogue failed to initialize for one of the first players
+	 */
+	public static void startDialogue(Collection<ServerPlayer> players, Identifier id, @Nullable Entity interlocutor) {
+		try {
+			DialogueOpeningScheduler.startDialogue(players, id, interlocutor);
+		} catch (CommandSyntaxException e) {
+			throw new DialogueInitializationException("Failed to parse texts in dialogue template " + id, e);
+		}
+	}
+
 	/**
 	 * Ends the current dialogue if its id equals {@code expectedDialogue}.
 	 *
@@ -25,8 +25,6 @@ import net.fabricmc.fabric.api.event.registry.FabricRegistryBuilder;
 import net.fabricmc.fabric.api.event.registry.RegistryAttribute;
 import net.fabricmc.fabric.api.menu.v1.ExtendedMenuType;
 import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
-import net.fabricmc.fabric.api.networking.v1.ServerConfigurationConnectionEvents;
-import net.fabricmc.fabric.api.networking.v1.ServerConfigurationNetworking;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.SharedSuggestionProvider;
@@ -36,7 +34,6 @@ import net.minecraft.core.MappedRegistry;
 import net.minecraft.core.Registry;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
-import net.minecraft.resources.Identifier;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.inventory.MenuType;
@@ -47,17 +44,20 @@ import org.ladysnake.blabber.api.layout.DefaultLayoutParams;
 import org.ladysnake.blabber.api.layout.DialogueLayoutType;
 import org.ladysnake.blabber.impl.common.commands.SettingArgumentType;
 import org.ladysnake.blabber.impl.common.machine.DialogueStateMachine;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+import org.ladysnake.blabber.impl.common.packets.ChoiceAcknowledgementPayload;
 import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
 import org.ladysnake.blabber.impl.common.packets.ChoiceSelectionPayload;
 import org.ladysnake.blabber.impl.common.packets.DialogueListPayload;
-import org.ladysnake.blabber.impl.common.packets.SelectedDialogueStatePayload;
+import org.ladysnake.blabber.impl.common.packets.DialogueStatesPayload;
+import org.ladysnake.blabber.impl.common.packets.TemplateCompressionPayload;
+import org.ladysnake.blabber.impl.common.packets.TemplateRequestPayload;
 import org.ladysnake.blabber.impl.common.settings.BlabberSettingsComponent;
 import org.ladysnake.cca.api.v3.entity.EntityComponentFactoryRegistry;
 import org.ladysnake.cca.api.v3.entity.EntityComponentInitializer;
 import org.ladysnake.cca.api.v3.entity.RespawnCopyStrategy;
 
 import java.util.Optional;
-import java.util.Set;
 
 public final class BlabberRegistrar implements EntityComponentInitializer {
     public static final ResourceKey<Registry<MapCodec<? extends DialogueActionV2>>> ACTION_REGISTRY_KEY = ResourceKey.createRegistryKey(Blabber.id("dialogue_actions"));
@@ -75,7 +75,12 @@ public final class BlabberRegistrar implements EntityComponentInitializer {
             new MappedRegistry<>(LAYOUT_REGISTRY_KEY, Lifecycle.stable(), false)
     ).attribute(RegistryAttribute.SYNCED).buildAndRegister();
     public static final MenuType<DialogueScreenHandler> DIALOGUE_SCREEN_HANDLER = Registry.register(BuiltInRegistries.MENU, Blabber.id("dialogue"), new ExtendedMenuType<>((syncId, inventory, data) -> {
-        DialogueStateMachine dialogue = data.dialogue();
+        DialogueTemplate template = DialogueTemplateCache.getClientTemplate(data.template());
+        if (template == null) {
+            // The server will open the dialogue again with the template once the client asks for it
+            return DialogueScreenHandler.awaitingTemplate(syncId, data.dialogueId(), data.template().hash());
+        }
+        DialogueStateMachine dialogue = new DialogueStateMachine(data.dialogueId(), template, data.stateKeys(), data.stateId());
         dialogue.applyAvailabilityUpdate(data.availableChoices());
         Optional<Entity> interlocutor = data.interlocutorId().map(inventory.player.level()::getEntity);
         return new DialogueScreenHandler(syncId, dialogue, interlocutor.orElse(null));
@@ -93,30 +98,29 @@ public final class BlabberRegistrar implements EntityComponentInitializer {
         ArgumentTypeRegistry.registerArgumentType(Blabber.id("setting"), SettingArgumentType.class, SingletonArgumentInfo.contextFree(SettingArgumentType::setting));
 
         DialogueLoader.init();
+        DialogueConditionScheduler.init();
+        ChoiceAvailabilityBatcher.init();
+        DialogueOpeningScheduler.init();
+        DialogueListSync.init();
+        TemplateCompression.init();
 
         PayloadTypeRegistry.clientboundConfiguration().register(DialogueListPayload.ID, DialogueListPayload.PACKET_CODEC);
+        PayloadTypeRegistry.clientboundConfiguration().register(TemplateCompressionPayload.ID, TemplateCompressionPayload.PACKET_CODEC);
 
         PayloadTypeRegistry.clientboundPlay().register(DialogueListPayload.ID, DialogueListPayload.PACKET_CODEC);
         PayloadTypeRegistry.clientboundPlay().register(ChoiceAvailabilityPayload.ID, ChoiceAvailabilityPayload.PACKET_CODEC);
-        PayloadTypeRegistry.clientboundPlay().register(SelectedDialogueStatePayload.ID, SelectedDialogueStatePayload.PACKET_CODEC);
+        PayloadTypeRegistry.clientboundPlay().register(ChoiceAcknowledgementPayload.ID, ChoiceAcknowledgementPayload.PACKET_CODEC);
+        PayloadTypeRegistry.clientboundPlay().register(DialogueStatesPayload.ID, DialogueStatesPayload.PACKET_CODEC);
 
         PayloadTypeRegistry.serverboundPlay().register(ChoiceSelectionPayload.ID, ChoiceSelectionPayload.PACKET_CODEC);
+        PayloadTypeRegistry.serverboundPlay().register(TemplateRequestPayload.ID, TemplateRequestPayload.PACKET_CODEC);
 
         ServerPlayNetworking.registerGlobalReceiver(ChoiceSelectionPayload.ID, (payload, ctx) -> {
             if (ctx.player().containerMenu instanceof DialogueScreenHandler dialogueHandler) {
-                if (!dialogueHandler.makeChoice(ctx.player(), payload.selectedChoice())) {
-                    ctx.responseSender().sendPacket(new SelectedDialogueStatePayload(dialogueHandler.getCurrentStateKey()));
-                }
-            }
-        });
-        ServerConfigurationConnectionEvents.CONFIGURE.register((handler, server) -> {
-            if (ServerConfigurationNetworking.canSend(handler, DialogueListPayload.ID)) {
-                Set<Identifier> dialogueIds = DialogueRegistry.getIds();
-                ServerConfigurationNetworking.send(handler, new DialogueListPayload(dialogueIds));
-            } else {
-                Blabber.LOGGER.warn("{} does not have Blabber installed, this will cause issues if they trigger a dialogue", handler.getOwner().name());
+                dialogueHandler.handleChoiceSelection(ctx.player(), payload);
             }
         });
+        ServerPlayNetworking.registerGlobalReceiver(TemplateRequestPayload.ID, (payload, ctx) -> PlayerDialogueTracker.get(ctx.player()).resendTemplate(payload.hash()));
     }
 
     public static <T extends CustomPacketPayload> CustomPacketPayload.Type<T> payloadId(String name) {
@@ -0,0 +1,125 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import it.unimi.dsi.fastutil.ints.Int2BooleanMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import org.jetbrains.annotations.Nullable;
+import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
+
+/**
+ * Collects the choice availability changes of a player's dialogue, to send them at most once every {@link #WINDOW} ticks.
+ *
+ * <p>A change that gets reverted before being sent cancels out, so that flickering conditions
+ * do not cause a packet every tick.
+ */
+public final class ChoiceAvailabilityBatcher {
+    /**
+     * Minimum delay between two availability packets sent to the same player, in ticks
+     */
+    public static final int WINDOW = Math.max(1, Integer.getInteger("blabber.availability_update_window", 4));
+
+    private static long sentUpdates;
+    private static long suppressedUpdates;
+
+    private @Nullable ChoiceAvailabilityPayload pending;
+    private int nextFlushTick;
+
+    public static void init() {
+        // Integrated servers get started again in the same process, and the counters are meant to cover a single run
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> {
+            sentUpdates = 0;
+            suppressedUpdates = 0;
+        });
+    }
+
+    /**
+     * @return how many availability packets have been sent since the server started
+     */
+    public static long getSentPacketCount() {
+        return sentUpdates;
+    }
+
+    /**
+     * @return how many availability packets have been merged into others or cancelled out since the server started
+     */
+    public static long getSuppressedPacketCount() {
+        return suppressedUpdates;
+    }
+
+    public void add(ChoiceAvailabilityPayload update) {
+        if (this.pending == null) {
+            this.pending = update;
+            return;
+        }
+        suppressedUpdates++;
+        update.updatedChoices().forEach((stateId, choices) -> {
+            for (Int2BooleanMap.Entry choice : choices.int2BooleanEntrySet()) {
+                // Updates only ever report flips, so a choice that was already pending is back to what the client knows
+                Int2BooleanMap pendingChoices = this.pending.updatedChoices().get((int) stateId);
+                if (pendingChoices != null && pendingChoices.containsKey(choice.getIntKey())) {
+                    pendingChoices.remove(choice.getIntKey());
+                    if (pendingChoices.isEmpty()) this.pending.updatedChoices().remove((int) stateId);
+                } else {
+                    this.pending.markUpdated(stateId, choice.getIntKey(), choice.getBooleanValue());
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the changes to send at this tick, or {@code null} if there are none or the last packet was sent too recently
+     */
+    public @Nullable ChoiceAvailabilityPayload poll(int tick) {
+        if (this.pending == null || tick - this.nextFlushTick < 0) return null;
+
+        ChoiceAvailabilityPayload batch = this.pending;
+        this.pending = null;
+        if (batch.updatedChoices().isEmpty()) {
+            // Every change in the batch cancelled out, so the update that started it never gets sent either
+            suppressedUpdates++;
+            return null;
+        }
+        this.nextFlushTick = tick + WINDOW;
+        sentUpdates++;
+        return batch;
+    }
+
+    /**
+     * Drops pending changes to a single state, for when the client receives its full availability instead
+     */
+    public void discard(int stateId) {
+        if (this.pending != null) {
+            this.pending.updatedChoices().remove(stateId);
+            if (this.pending.updatedChoices().isEmpty()) {
+                this.pending = null;
+                suppressedUpdates++;
+            }
+        }
+    }
+
+    /**
+     * Drops pending changes, for when the client receives a full availability update instead
+     */
+    public void clear() {
+        if (this.pending != null) {
+            this.pending = null;
+            suppressedUpdates++;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.players.PlayerList;
+import net.minecraft.world.scores.ScoreHolder;
+import org.ladysnake.blabber.impl.common.model.ConditionTrigger;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Updates the choice conditions of every ongoing dialogue in a single pass at the end of each server tick.
+ *
+ * <p>Predicates are only looked up again after a data pack reload, and choices may space out their tests
+ * with a {@linkplain org.ladysnake.blabber.impl.common.model.DialogueChoiceCondition#checkInterval() check interval}.
+ * Choices that declare the {@linkplain ConditionTrigger player state} they depend on get tested again as soon as it changes.
+ *
+ * <p>A change to the score of a player, including its reset, only triggers the scoreboard conditions of that player,
+ * while changes to any other score holder, like fake players or entities, and removed objectives trigger those of everyone.
+ * Conditions reading the scores of other players rely on their check interval to notice changes.
+ */
+public final class DialogueConditionScheduler implements ServerTickEvents.EndTick {
+    /**
+     * Names of the score holders which scores changed since the last tick
+     */
+    private static final Set<String> changedScoreHolders = new HashSet<>();
+    private static boolean objectiveRemoved;
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(new DialogueConditionScheduler());
+    }
+
+    public static void onScoreChanged(ScoreHolder scoreHolder) {
+        changedScoreHolders.add(scoreHolder.getScoreboardName());
+    }
+
+    public static void onObjectiveRemoved() {
+        objectiveRemoved = true;
+    }
+
+    @Override
+    public void onEndTick(MinecraftServer server) {
+        PlayerList playerList = server.getPlayerList();
+        boolean sharedScoreChanged = objectiveRemoved;
+        for (String scoreHolder : changedScoreHolders) {
+            if (playerList.getPlayerByName(scoreHolder) == null) {
+                sharedScoreChanged = true;
+                break;
+            }
+        }
+        for (ServerPlayer player : playerList.getPlayers()) {
+            boolean scoreChanged = sharedScoreChanged || changedScoreHolders.contains(player.getScoreboardName());
+            PlayerDialogueTracker.get(player).tickConditions(scoreChanged ? ConditionTrigger.SCOREBOARD.mask() : 0);
+        }
+        changedScoreHolders.clear();
+        objectiveRemoved = false;
+    }
+
+    private DialogueConditionScheduler() {}
+}
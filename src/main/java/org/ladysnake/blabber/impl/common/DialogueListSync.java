@@ -0,0 +1,114 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import com.google.common.collect.Sets;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerConfigurationConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerConfigurationNetworking;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import org.jetbrains.annotations.Nullable;
+import org.ladysnake.blabber.Blabber;
+import org.ladysnake.blabber.impl.common.packets.DialogueListPayload;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps the dialogue ids known by clients up to date.
+ *
+ * <p>Each change to the set of dialogue ids makes a new version. Players get the full list when they join,
+ * and after a reload, those who had the previous version only get what was added or removed since.
+ */
+public final class DialogueListSync {
+    private static Set<Identifier> syncedIds = Set.of();
+    private static int version;
+    private static DialogueListPayload fullPayload = DialogueListPayload.full(version, syncedIds);
+    /**
+     * The last list version sent to each connected player, including those still in the configuration phase
+     */
+    private static final Map<UUID, Integer> knownVersions = new HashMap<>();
+
+    public static void init() {
+        // Reloads only end up in onReload, the initial load needs its own version
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> updateVersion());
+        ServerConfigurationConnectionEvents.CONFIGURE.register((handler, server) -> {
+            if (ServerConfigurationNetworking.canSend(handler, DialogueListPayload.ID)) {
+                // Not updating the version here, as a reload may be halfway through and onReload has to see the change
+                ServerConfigurationNetworking.send(handler, fullPayload);
+                knownVersions.put(handler.getOwner().id(), version);
+            } else {
+                Blabber.LOGGER.warn("{} does not have Blabber installed, this will cause issues if they trigger a dialogue", handler.getOwner().name());
+            }
+        });
+        // A reload may have happened while the player was still being configured
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> syncPlayer(handler.player, null));
+        ServerConfigurationConnectionEvents.DISCONNECT.register((handler, server) -> knownVersions.remove(handler.getOwner().id()));
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> knownVersions.remove(handler.player.getUUID()));
+    }
+
+    /**
+     * Sends the changes made by a reload to every player
+     */
+    public static void onReload(MinecraftServer server) {
+        int previousVersion = version;
+        Set<Identifier> previousIds = syncedIds;
+        if (!updateVersion()) return;
+
+        DialogueListPayload delta = new DialogueListPayload(
+                previousVersion,
+                version,
+                Set.copyOf(Sets.difference(syncedIds, previousIds)),
+                Set.copyOf(Sets.difference(previousIds, syncedIds))
+        );
+        for (ServerPlayer player : server.getPlayerList().getPlayers()) {
+            syncPlayer(player, delta);
+        }
+    }
+
+    private static void syncPlayer(ServerPlayer player, @Nullable DialogueListPayload delta) {
+        Integer knownVersion = knownVersions.get(player.getUUID());
+        if ((knownVersion != null && knownVersion == version) || !ServerPlayNetworking.canSend(player, DialogueListPayload.ID)) return;
+
+        boolean canUseDelta = delta != null && knownVersion != null && delta.baseVersion() == knownVersion;
+        ServerPlayNetworking.send(player, canUseDelta ? delta : fullPayload);
+        knownVersions.put(player.getUUID(), version);
+    }
+
+    /**
+     * Only called on the server thread once dialogues are fully loaded
+     *
+     * @return {@code true} if the set of dialogue ids changed since the last version
+     */
+    private static boolean updateVersion() {
+        Set<Identifier> ids = DialogueRegistry.getIds();
+        if (ids.equals(syncedIds)) return false;
+        syncedIds = Set.copyOf(ids);
+        version++;
+        fullPayload = DialogueListPayload.full(version, syncedIds);
+        return true;
+    }
+
+    private DialogueListSync() {}
+}
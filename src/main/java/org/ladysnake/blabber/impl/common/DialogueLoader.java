@@ -17,13 +17,15 @@
  */
 package org.ladysnake.blabber.impl.common;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.mojang.serialization.JsonOps;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
-import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.fabric.api.resource.v1.ResourceLoader;
 import net.fabricmc.fabric.api.resource.v1.reloader.ResourceReloaderKeys;
 import net.fabricmc.fabric.api.resource.v1.reloader.SimpleReloadListener;
@@ -32,26 +34,43 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.packs.PackType;
 import net.minecraft.server.packs.resources.CloseableResourceManager;
+import net.minecraft.server.packs.resources.Resource;
+import org.jetbrains.annotations.Nullable;
 import org.ladysnake.blabber.Blabber;
 import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
-import org.ladysnake.blabber.impl.common.packets.DialogueListPayload;
 import org.ladysnake.blabber.impl.common.validation.DialogueLoadingException;
 import org.ladysnake.blabber.impl.common.validation.DialogueValidator;
 import org.ladysnake.blabber.impl.common.validation.ValidationResult;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.stream.Stream;
 
 
-public final class DialogueLoader extends SimpleReloadListener<Map<Identifier, JsonObject>> implements ServerLifecycleEvents.EndDataPackReload {
+public final class DialogueLoader extends SimpleReloadListener<Map<Identifier, DialogueLoader.LoadedDialogue>> implements ServerLifecycleEvents.EndDataPackReload {
     public static final String BLABBER_DIALOGUES_PATH = "blabber/dialogues";
     public static final Identifier ID = Blabber.id("dialogue_loader");
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final HashFunction CONTENT_HASH = Hashing.murmur3_128();
+    /**
+     * Below this many files, the overhead of splitting the work between threads is not worth it
+     */
+    private static final int PARALLEL_LOADING_THRESHOLD = 64;
+
+    /**
+     * Dialogues from the last successful reload, keyed by resource location.
+     *
+     * <p>Written in {@link #apply(Map, SharedState)} and read during the next {@link #prepare(SharedState)},
+     * which happens on another thread.
+     */
+    private volatile Map<Identifier, LoadedDialogue> loadedDialogues = Map.of();
 
     public static void init() {
         DialogueLoader instance = new DialogueLoader();
@@ -61,54 +80,91 @@ public final class DialogueLoader extends SimpleReloadListener<Map<Identifier, J
         ServerLifecycleEvents.END_DATA_PACK_RELOAD.register(instance);
     }
 
+    /**
+     * Reads, decodes and validates every dialogue file.
+     *
+     * <p>Each file goes straight from bytes to a {@link DialogueTemplate}, so its JSON tree can be collected
+     * as soon as it has been decoded instead of being kept around until {@link #apply(Map, SharedState)}.
+     */
     @Override
-    protected Map<Identifier, JsonObject> prepare(SharedState sharedState) {
-        Map<Identifier, JsonObject> data = new LinkedHashMap<>();
-        sharedState.resourceManager().listResources(BLABBER_DIALOGUES_PATH, (res) -> res.getPath().endsWith(".json")).forEach((location, resource) -> {
-            try (Reader in = new InputStreamReader(resource.open(), StandardCharsets.UTF_8)) {
-                JsonObject jsonObject = GSON.fromJson(in, JsonObject.class);
-                data.put(location, jsonObject);
-            } catch (IOException | JsonParseException e) {
-                Blabber.LOGGER.error("(Blabber) Could not read dialogue file from {}", location, e);
-                throw new DialogueLoadingException("Could not read dialogue file from " + location, e);
+    protected Map<Identifier, LoadedDialogue> prepare(SharedState sharedState) {
+        Map<Identifier, Resource> resources = sharedState.resourceManager().listResources(BLABBER_DIALOGUES_PATH, (res) -> res.getPath().endsWith(".json"));
+        // Every file is independent, so large packs get spread over the common pool
+        return loadDialogues(resources, this.loadedDialogues, resources.size() >= PARALLEL_LOADING_THRESHOLD);
+    }
+
+    /**
+     * @param previouslyLoaded dialogues from the last reload, reused for files which did not change
+     */
+    static Map<Identifier, LoadedDialogue> loadDialogues(Map<Identifier, Resource> resources, Map<Identifier, LoadedDialogue> previouslyLoaded, boolean parallel) {
+        Stream<Map.Entry<Identifier, Resource>> entries = parallel
+                ? resources.entrySet().parallelStream()
+                : resources.entrySet().stream();
+        // Collecting to a list keeps the encounter order of the resource listing, whatever thread did the work
+        List<LoadedDialogue> loaded = entries
+                .map(entry -> readDialogue(entry.getKey(), entry.getValue(), previouslyLoaded.get(entry.getKey())))
+                .toList();
+        Map<Identifier, LoadedDialogue> data = new LinkedHashMap<>();
+        for (LoadedDialogue dialogue : loaded) {
+            data.put(dialogue.location(), dialogue);
+        }
+        return data;
+    }
+
+    private static LoadedDialogue readDialogue(Identifier location, Resource resource, @Nullable LoadedDialogue previous) {
+        try (InputStream in = resource.open()) {
+            byte[] content = in.readAllBytes();
+            HashCode hash = CONTENT_HASH.hashBytes(content);
+
+            // Unchanged files keep their already validated template, so ongoing dialogues can keep going
+            if (previous != null && previous.hash().equals(hash)) {
+                return previous;
+            }
+
+            JsonObject jsonObject;
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)) {
+                jsonObject = GSON.fromJson(reader, JsonObject.class);
             }
+            return decodeDialogue(location, hash, jsonObject);
+        } catch (IOException | JsonParseException e) {
+            Blabber.LOGGER.error("(Blabber) Could not read dialogue file from {}", location, e);
+            throw new DialogueLoadingException("Could not read dialogue file from " + location, e);
+        }
+    }
+
+    private static LoadedDialogue decodeDialogue(Identifier location, HashCode hash, JsonObject jsonObject) {
+        Identifier id = Identifier.fromNamespaceAndPath(location.getNamespace(), location.getPath().substring(BLABBER_DIALOGUES_PATH.length() + 1, location.getPath().length() - 5));
+        DialogueTemplate dialogue = DialogueTemplate.CODEC.parse(JsonOps.INSTANCE, jsonObject).getOrThrow(message -> {
+            Blabber.LOGGER.error("(Blabber) Could not parse dialogue file from {}: {}", location, message);
+            return new RuntimeException(message);
         });
-        return data;
+        switch (DialogueValidator.validateStructure(dialogue)) {
+            case ValidationResult.Error error -> {
+                Blabber.LOGGER.error("(Blabber) Could not validate dialogue {}: {}", id, error.message());
+                throw new DialogueLoadingException("Could not validate dialogue file from " + location);
+            }
+            case ValidationResult.Warnings warnings -> Blabber.LOGGER.warn("(Blabber) Dialogue {} had warnings: {}", id, warnings.message());
+            case ValidationResult.Success ignored -> {}
+        }
+        return new LoadedDialogue(location, id, hash, dialogue);
     }
 
     @Override
-    protected void apply(Map<Identifier, JsonObject> data, SharedState sharedState) {
+    protected void apply(Map<Identifier, LoadedDialogue> data, SharedState sharedState) {
         Map<Identifier, DialogueTemplate> dialogues = new LinkedHashMap<>();
-        data.forEach((location, jsonObject) -> {
-            Identifier id = Identifier.fromNamespaceAndPath(location.getNamespace(), location.getPath().substring(BLABBER_DIALOGUES_PATH.length() + 1, location.getPath().length() - 5));
-            DialogueTemplate dialogue = DialogueTemplate.CODEC.parse(JsonOps.INSTANCE, jsonObject).getOrThrow(message -> {
-                Blabber.LOGGER.error("(Blabber) Could not parse dialogue file from {}: {}", location, message);
-                return new RuntimeException(message);
-            });
-            switch (DialogueValidator.validateStructure(dialogue)) {
-                case ValidationResult.Error error -> {
-                    Blabber.LOGGER.error("(Blabber) Could not validate dialogue {}: {}", id, error.message());
-                    throw new DialogueLoadingException("Could not validate dialogue file from " + location);
-                }
-                case ValidationResult.Warnings warnings -> {
-                    Blabber.LOGGER.warn("(Blabber) Dialogue {} had warnings: {}", id, warnings.message());
-                    dialogues.put(id, dialogue);
-                }
-                case ValidationResult.Success ignored -> {
-                    dialogues.put(id, dialogue);
-                }
-            }
-        });
+        for (LoadedDialogue dialogue : data.values()) {
+            dialogues.put(dialogue.id(), dialogue.template());
+        }
         DialogueRegistry.setEntries(dialogues);
+        DialogueTemplateCache.invalidate();
+        this.loadedDialogues = data;
     }
 
     @Override
     public void endDataPackReload(MinecraftServer server, CloseableResourceManager resourceManager, boolean success) {
         if (success) {
-            Set<Identifier> dialogueIds = DialogueRegistry.getIds();
-            DialogueListPayload idSyncPacket = new DialogueListPayload(dialogueIds);
+            DialogueListSync.onReload(server);
             for (ServerPlayer player : server.getPlayerList().getPlayers()) {
-                ServerPlayNetworking.send(player, idSyncPacket);
                 PlayerDialogueTracker.get(player).updateDialogue();
             }
         }
@@ -116,4 +172,11 @@ public final class DialogueLoader extends SimpleReloadListener<Map<Identifier, J
 
     private DialogueLoader() {}
 
+    /**
+     * @param location the resource location of the file the dialogue was read from
+     * @param id       the identifier of the dialogue
+     * @param hash     a hash of the raw file content
+     * @param template the decoded and validated dialogue
+     */
+    record LoadedDialogue(Identifier location, Identifier id, HashCode hash, DialogueTemplate template) { }
 }
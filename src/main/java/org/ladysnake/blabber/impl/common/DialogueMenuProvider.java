@@ -17,11 +17,13 @@
  */
 package org.ladysnake.blabber.impl.common;
 
+import com.google.common.hash.HashCode;
 import net.fabricmc.fabric.api.menu.v1.ExtendedMenuProvider;
 import net.minecraft.network.RegistryFriendlyByteBuf;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.resources.Identifier;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.player.Inventory;
@@ -29,8 +31,10 @@ import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.AbstractContainerMenu;
 import org.jetbrains.annotations.Nullable;
 import org.ladysnake.blabber.impl.common.machine.DialogueStateMachine;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
 import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
 
+import java.util.List;
 import java.util.Optional;
 
 public class DialogueMenuProvider implements ExtendedMenuProvider<DialogueMenuProvider.DialogueOpeningData> {
@@ -56,17 +60,30 @@ public class DialogueMenuProvider implements ExtendedMenuProvider<DialogueMenuPr
 
     @Override
     public DialogueOpeningData getScreenOpeningData(ServerPlayer player) {
+        DialogueTemplate template = this.dialogue.getSyncedTemplate();
+        HashCode hash = DialogueTemplateCache.hash(template, player.registryAccess());
+        boolean known = DialogueTemplateCache.markSent(player, hash);
         return new DialogueOpeningData(
-                this.dialogue,
+                this.dialogue.getId(),
+                new DialogueTemplateCache.SyncedTemplate(hash, known ? Optional.empty() : Optional.of(template), TemplateCompression.isSupported(player)),
+                this.dialogue.getStateKeyTable(),
+                this.dialogue.getCurrentStateId(),
                 Optional.ofNullable(this.interlocutor).map(Entity::getId),
                 this.dialogue.createFullAvailabilityUpdatePacket()
         );
     }
 
-    public record DialogueOpeningData(DialogueStateMachine dialogue, Optional<Integer> interlocutorId,
-                                      ChoiceAvailabilityPayload availableChoices) {
+    /**
+     * @param stateKeys the keys of the states revealed so far, which later packets refer to by position
+     * @param stateId   the position of the current state in {@code stateKeys}
+     */
+    public record DialogueOpeningData(Identifier dialogueId, DialogueTemplateCache.SyncedTemplate template, List<String> stateKeys, int stateId,
+                                      Optional<Integer> interlocutorId, ChoiceAvailabilityPayload availableChoices) {
         public static final StreamCodec<RegistryFriendlyByteBuf, DialogueOpeningData> PACKET_CODEC = StreamCodec.composite(
-                DialogueStateMachine.PACKET_CODEC, DialogueOpeningData::dialogue,
+                Identifier.STREAM_CODEC, DialogueOpeningData::dialogueId,
+                DialogueTemplateCache.SyncedTemplate.PACKET_CODEC, DialogueOpeningData::template,
+                ByteBufCodecs.STRING_UTF8.apply(ByteBufCodecs.list()), DialogueOpeningData::stateKeys,
+                ByteBufCodecs.VAR_INT, DialogueOpeningData::stateId,
                 ByteBufCodecs.VAR_INT.apply(ByteBufCodecs::optional), DialogueOpeningData::interlocutorId,
                 ChoiceAvailabilityPayload.PACKET_CODEC, DialogueOpeningData::availableChoices,
                 DialogueOpeningData::new
@@ -0,0 +1,100 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import org.jetbrains.annotations.Nullable;
+import org.ladysnake.blabber.Blabber;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.UUID;
+
+/**
+ * Starts dialogues for many players at once, spreading the work over several ticks.
+ *
+ * <p>Players sharing a dialogue also share the parts of it that do not depend on them,
+ * like the {@linkplain DialogueTemplateCache#getPartialTemplate partial template} sent to their client along with its hash.
+ */
+public final class DialogueOpeningScheduler implements ServerTickEvents.EndTick, ServerLifecycleEvents.ServerStopping {
+    /**
+     * How many dialogues get started in a single tick at most
+     */
+    public static final int OPENINGS_PER_TICK = 16;
+    private static final Queue<PendingOpening> pendingOpenings = new ArrayDeque<>();
+
+    public static void init() {
+        DialogueOpeningScheduler instance = new DialogueOpeningScheduler();
+        ServerTickEvents.END_SERVER_TICK.register(instance);
+        ServerLifecycleEvents.SERVER_STOPPING.register(instance);
+    }
+
+    /**
+     * Starts a dialogue for the first {@link #OPENINGS_PER_TICK} players right away, and for the others over the next ticks.
+     *
+     * @throws IllegalArgumentException if {@code id} is not a valid dialogue in this game instance
+     * @throws CommandSyntaxException if the dialogue failed to start for one of the first players
+     */
+    public static void startDialogue(Collection<ServerPlayer> players, Identifier id, @Nullable Entity interlocutor) throws CommandSyntaxException {
+        if (!DialogueRegistry.containsId(id)) {
+            throw new IllegalArgumentException("Unknown dialogue " + id);
+        }
+
+        Iterator<ServerPlayer> iterator = players.iterator();
+        for (int i = 0; i < OPENINGS_PER_TICK && iterator.hasNext(); i++) {
+            PlayerDialogueTracker.get(iterator.next()).startDialogue(id, interlocutor);
+        }
+        while (iterator.hasNext()) {
+            pendingOpenings.add(new PendingOpening(iterator.next().getUUID(), id, interlocutor));
+        }
+    }
+
+    @Override
+    public void onEndTick(MinecraftServer server) {
+        for (int i = 0; i < OPENINGS_PER_TICK && !pendingOpenings.isEmpty(); i++) {
+            PendingOpening opening = pendingOpenings.remove();
+            // Things may have changed since the dialogue was requested, and respawning replaces the player entity
+            ServerPlayer player = server.getPlayerList().getPlayer(opening.playerId());
+            if (player == null || !DialogueRegistry.containsId(opening.dialogueId())) continue;
+            if (opening.interlocutor() != null && opening.interlocutor().isRemoved()) continue;
+
+            try {
+                PlayerDialogueTracker.get(player).startDialogue(opening.dialogueId(), opening.interlocutor());
+            } catch (CommandSyntaxException e) {
+                Blabber.LOGGER.error("(Blabber) Failed to start dialogue {} for {}", opening.dialogueId(), player.getScoreboardName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void onServerStopping(MinecraftServer server) {
+        pendingOpenings.clear();
+    }
+
+    private record PendingOpening(UUID playerId, Identifier dialogueId, @Nullable Entity interlocutor) { }
+
+    private DialogueOpeningScheduler() {}
+}
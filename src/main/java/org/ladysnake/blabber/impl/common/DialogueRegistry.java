@@ -19,8 +19,11 @@ package org.ladysnake.blabber.impl.common;
 
 import net.minecraft.resources.Identifier;
 import org.jetbrains.annotations.ApiStatus;
+import org.ladysnake.blabber.Blabber;
 import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+import org.ladysnake.blabber.impl.common.packets.DialogueListPayload;
 
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -37,6 +40,7 @@ import java.util.Set;
 
 public final class DialogueRegistry {
     private static Set<Identifier> clientDialogueIds = Set.of();
+    private static int clientDialogueIdsVersion = DialogueListPayload.FULL;
     private static Map<Identifier, DialogueTemplate> entries = Map.of();
 
     public static Set<Identifier> getClientIds() {
@@ -60,7 +64,18 @@ public final class DialogueRegistry {
     }
 
     @ApiStatus.Internal // highly internal
-    public static void setClientIds(Set<Identifier> dialogueIds) {
-        clientDialogueIds = dialogueIds;
+    public static void applyClientIds(DialogueListPayload payload) {
+        if (payload.isFull()) {
+            clientDialogueIds = Set.copyOf(payload.addedIds());
+        } else {
+            if (payload.baseVersion() != clientDialogueIdsVersion) {
+                Blabber.LOGGER.warn("(Blabber) Received dialogue list changes for version {}, but the last known version is {}", payload.baseVersion(), clientDialogueIdsVersion);
+            }
+            Set<Identifier> dialogueIds = new HashSet<>(clientDialogueIds);
+            dialogueIds.removeAll(payload.removedIds());
+            dialogueIds.addAll(payload.addedIds());
+            clientDialogueIds = Set.copyOf(dialogueIds);
+        }
+        clientDialogueIdsVersion = payload.version();
     }
 }
@@ -20,7 +20,10 @@ package org.ladysnake.blabber.impl.common;
 import com.demonwav.mcdev.annotations.CheckEnv;
 import com.demonwav.mcdev.annotations.Env;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.network.chat.Component;
+import net.minecraft.resources.Identifier;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.player.Player;
@@ -34,15 +37,42 @@ import org.ladysnake.blabber.api.layout.DialogueLayout;
 import org.ladysnake.blabber.impl.common.machine.AvailableChoice;
 import org.ladysnake.blabber.impl.common.machine.ChoiceResult;
 import org.ladysnake.blabber.impl.common.machine.DialogueStateMachine;
+import org.ladysnake.blabber.impl.common.model.DialogueState;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
 import org.ladysnake.blabber.impl.common.model.StateType;
+import org.ladysnake.blabber.impl.common.packets.ChoiceAcknowledgementPayload;
 import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
+import org.ladysnake.blabber.impl.common.packets.ChoiceSelectionPayload;
+import org.ladysnake.blabber.impl.common.packets.DialogueStatesPayload;
 
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class DialogueScreenHandler extends AbstractContainerMenu {
     private final DialogueStateMachine dialogue;
     private final @Nullable Entity interlocutor;
+    /**
+     * On the client, the sequence number of the last choice made; on the server, that of the last choice processed
+     */
+    private int lastChoiceSequence;
+    /**
+     * Choices the client made that the server has not acknowledged yet, oldest first
+     */
+    private final ArrayDeque<PredictedChoice> predictedChoices = new ArrayDeque<>();
+    private @Nullable ServerPlayer unacknowledgedPlayer;
+    private boolean choiceRejected;
+    /**
+     * On the client, the type of a state the player was waiting for which just got revealed
+     */
+    private @Nullable StateType reachedStateType;
+    /**
+     * On the client, the hash of the template the server referred to if it was not in the cache
+     */
+    private @Nullable HashCode missingTemplate;
 
     public DialogueScreenHandler(int syncId, DialogueStateMachine dialogue, @Nullable Entity interlocutor) {
         this(BlabberRegistrar.DIALOGUE_SCREEN_HANDLER, syncId, dialogue, interlocutor);
@@ -54,6 +84,32 @@ public class DialogueScreenHandler extends AbstractContainerMenu {
         this.interlocutor = interlocutor;
     }
 
+    /**
+     * Creates a blank, unskippable dialogue to show until the server opens it again with the missing template
+     */
+    @CheckEnv(Env.CLIENT)
+    public static DialogueScreenHandler awaitingTemplate(int syncId, Identifier dialogueId, HashCode templateHash) {
+        DialogueTemplate placeholder = new DialogueTemplate(
+                Optional.empty(),
+                "awaiting_template",
+                true,
+                Map.of("awaiting_template", new DialogueState(Component.empty(), List.of(), List.of(), Optional.empty(), StateType.DEFAULT)),
+                Map.of(),
+                DialogueLayout.DEFAULT
+        );
+        DialogueScreenHandler handler = new DialogueScreenHandler(syncId, new DialogueStateMachine(dialogueId, placeholder, List.of(placeholder.start()), 0), null);
+        handler.missingTemplate = templateHash;
+        return handler;
+    }
+
+    /**
+     * @return the hash of the template this dialogue is {@linkplain #awaitingTemplate awaiting}, or {@code null} if it has it
+     */
+    @CheckEnv(Env.CLIENT)
+    public @Nullable HashCode getMissingTemplate() {
+        return this.missingTemplate;
+    }
+
     @SuppressWarnings("unused") // may be useful for custom layouts one day
     public @Nullable Entity getInterlocutor() {
         return interlocutor;
@@ -76,6 +132,10 @@ public class DialogueScreenHandler extends AbstractContainerMenu {
         return this.dialogue.getCurrentIllustrations();
     }
 
+    public Set<String> getNearbyIllustrations() {
+        return this.dialogue.getNearbyIllustrations();
+    }
+
     public Map<String, DialogueIllustration> getIllustrations() {
         return this.dialogue.getIllustrations();
     }
@@ -88,8 +148,8 @@ public class DialogueScreenHandler extends AbstractContainerMenu {
         return this.dialogue.getCurrentStateKey();
     }
 
-    public void setCurrentState(String key) {
-        this.dialogue.selectState(key);
+    public int getCurrentStateId() {
+        return this.dialogue.getCurrentStateId();
     }
 
     @Override
@@ -106,15 +166,101 @@ public class DialogueScreenHandler extends AbstractContainerMenu {
         this.dialogue.applyAvailabilityUpdate(packet);
     }
 
+    public void handleDialogueStates(DialogueStatesPayload packet) {
+        DialogueState reachedState = this.dialogue.addStates(packet);
+        if (reachedState != null) {
+            this.reachedStateType = reachedState.type();
+        }
+    }
+
+    /**
+     * @return the type of the state the player was waiting for if it was revealed since the last call, or {@code null}
+     */
+    @CheckEnv(Env.CLIENT)
+    public @Nullable StateType pollReachedStateType() {
+        StateType reached = this.reachedStateType;
+        this.reachedStateType = null;
+        return reached;
+    }
+
+    /**
+     * Makes a choice without waiting for the server, which will {@linkplain #handleChoiceAcknowledgement acknowledge} it later
+     *
+     * @param sender sends the choice to the server if it was valid
+     */
+    @CheckEnv(Env.CLIENT)
+    public StateType makeChoice(int choice, Consumer<? super ChoiceSelectionPayload> sender) {
+        int stateId = this.dialogue.getCurrentStateId();
+        StateType result = this.dialogue.choose(choice).type();
+        int sequence = ++this.lastChoiceSequence;
+        this.predictedChoices.add(new PredictedChoice(sequence, stateId));
+        sender.accept(new ChoiceSelectionPayload(sequence, stateId, (byte) choice));
+        return result;
+    }
+
     @CheckEnv(Env.CLIENT)
-    public StateType makeChoice(int choice) {
-        return this.dialogue.choose(choice).type();
+    public void handleChoiceAcknowledgement(ChoiceAcknowledgementPayload packet) {
+        while (!this.predictedChoices.isEmpty() && packet.sequence() - this.predictedChoices.peekFirst().sequence() >= 0) {
+            this.predictedChoices.removeFirst();
+        }
+
+        // If every prediction so far was right, the server is now where the client made its next choice from
+        PredictedChoice nextChoice = this.predictedChoices.peekFirst();
+        int expectedStateId = nextChoice != null ? nextChoice.stateId() : this.dialogue.getCurrentStateId();
+        if (packet.stateId() != expectedStateId) {
+            // Any remaining choice was made from the wrong state and will get rejected too
+            this.predictedChoices.clear();
+            this.dialogue.selectStateById(packet.stateId());
+        }
+        packet.availability().ifPresent(this.dialogue::applyAvailabilityUpdate);
+    }
+
+    public void handleChoiceSelection(ServerPlayer player, ChoiceSelectionPayload packet) {
+        if (packet.sequence() - this.lastChoiceSequence <= 0) return;   // already processed
+
+        this.lastChoiceSequence = packet.sequence();
+        this.unacknowledgedPlayer = player;
+        if (packet.stateId() != this.getCurrentStateId()) {
+            // Most likely made after an earlier choice got rejected, the client will catch up with the acknowledgement
+            this.choiceRejected = true;
+        } else if (!this.makeChoice(player, packet.selectedChoice())) {
+            this.choiceRejected = true;
+        }
+    }
+
+    /**
+     * Sends a single acknowledgement for all the choices received since the last tick
+     */
+    @Override
+    public void broadcastChanges() {
+        super.broadcastChanges();
+        ServerPlayer player = this.unacknowledgedPlayer;
+        if (player != null) {
+            Optional<ChoiceAvailabilityPayload> availability = Optional.empty();
+            if (this.choiceRejected) {
+                availability = Optional.of(this.dialogue.createCurrentAvailabilityPacket());
+                // A pending flip would otherwise get cancelled by the next one and leave the client with the wrong value
+                PlayerDialogueTracker.get(player).discardAvailabilityUpdates(this.getCurrentStateId());
+            }
+            ServerPlayNetworking.send(player, new ChoiceAcknowledgementPayload(
+                    this.lastChoiceSequence,
+                    this.getCurrentStateId(),
+                    availability
+            ));
+            this.unacknowledgedPlayer = null;
+            this.choiceRejected = false;
+        }
     }
 
     public boolean makeChoice(ServerPlayer player, int choice) {
         try {  // Can't throw here, could cause trouble with a bad packet
             ChoiceResult result = this.dialogue.choose(choice);
 
+            DialogueStatesPayload revealedStates = this.dialogue.createStatesPacket();
+            if (revealedStates != null) {
+                ServerPlayNetworking.send(player, revealedStates);
+            }
+
             result.action().map(InstancedDialogueAction::action).ifPresent(action -> action.handle(player, this.interlocutor));
 
             // The action itself can close the dialogue or switch to a different one, so we need to check this one is still open
@@ -128,4 +274,9 @@ public class DialogueScreenHandler extends AbstractContainerMenu {
             return false;
         }
     }
+
+    /**
+     * @param stateId the id of the state the choice was made from
+     */
+    private record PredictedChoice(int sequence, int stateId) { }
 }
@@ -0,0 +1,273 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets clients keep the dialogue templates they receive, so that opening the same dialogue again only costs a hash.
+ *
+ * <p>Templates are identified by a hash of their network form. The server keeps track of the hashes it sent
+ * through each connection in a set that evicts entries exactly like the client cache does,
+ * so it normally knows whether the client still has a template without having to ask.
+ * Should the two ever disagree, the client {@linkplain org.ladysnake.blabber.impl.common.packets.TemplateRequestPayload requests}
+ * the missing template, and the server {@linkplain #forget forgets} having sent it before opening the dialogue again.
+ *
+ * <p>The network form computed for the hash is kept as well, so that templates shared by many players
+ * only get encoded once.
+ */
+public final class DialogueTemplateCache {
+    /**
+     * How many templates a client keeps at most
+     */
+    public static final int CAPACITY = 64;
+    /**
+     * How many partial templates are kept for each template
+     */
+    private static final int PARTIAL_CAPACITY = 16;
+    private static final HashFunction TEMPLATE_HASH = Hashing.murmur3_128();
+    /**
+     * Network form and hash of templates that got sent recently, mostly useful for those shared by every player
+     */
+    private static final Cache<DialogueTemplate, EncodedTemplate> encodedTemplates = CacheBuilder.newBuilder().weakKeys().build();
+    /**
+     * Hashes sent through each connection, which outlives player entities across respawns
+     */
+    private static final Map<ServerGamePacketListenerImpl, Set<HashCode>> sentTemplates = new WeakHashMap<>();
+    /**
+     * Templates restricted to some of their states, shared by every dialogue that revealed the same states
+     * without resolving any of them
+     */
+    private static final Cache<DialogueTemplate, Map<BitSet, DialogueTemplate>> partialTemplates = CacheBuilder.newBuilder().weakKeys().build();
+    private static final Map<HashCode, DialogueTemplate> clientTemplates = createLru(CAPACITY);
+
+    public static HashCode hash(DialogueTemplate template, RegistryAccess registries) {
+        return getEncoded(template, registries).hash();
+    }
+
+    private static EncodedTemplate getEncoded(DialogueTemplate template, RegistryAccess registries) {
+        EncodedTemplate encoded = encodedTemplates.getIfPresent(template);
+        // Registry contents end up in the network form, so a different set of registries means a different encoding
+        if (encoded == null || encoded.registries() != registries) {
+            encoded = encode(template, registries);
+            encodedTemplates.put(template, encoded);
+        }
+        return encoded;
+    }
+
+    private static EncodedTemplate encode(DialogueTemplate template, RegistryAccess registries) {
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(), registries);
+        try {
+            DialogueTemplate.PACKET_CODEC.encode(buf, template);
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            return new EncodedTemplate(registries, TEMPLATE_HASH.hashBytes(bytes), bytes);
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * Drops every encoded template, for when dialogues get reloaded
+     */
+    public static void invalidate() {
+        encodedTemplates.invalidateAll();
+    }
+
+    /**
+     * Gets a template restricted to some states of another one, creating it if no other dialogue did already.
+     *
+     * <p>Sharing the same instance means the {@linkplain #hash(DialogueTemplate, RegistryAccess) hash} only gets computed once,
+     * for instance when a dialogue gets started for many players at once.
+     *
+     * @param states the indices of the states in the {@linkplain DialogueTemplate#graph() graph} of the template, which must not be modified afterward
+     */
+    public static DialogueTemplate getPartialTemplate(DialogueTemplate template, BitSet states, Supplier<DialogueTemplate> factory) {
+        return partialTemplates.asMap()
+                .computeIfAbsent(template, t -> createLru(PARTIAL_CAPACITY))
+                .computeIfAbsent(states, s -> factory.get());
+    }
+
+    /**
+     * Records that a template is being sent to a player.
+     *
+     * @return {@code true} if the client already has the template, {@code false} if it must be sent along
+     */
+    public static boolean markSent(ServerPlayer player, HashCode templateHash) {
+        return !sentTemplates.computeIfAbsent(player.connection, c -> Collections.newSetFromMap(createLru(CAPACITY))).add(templateHash);
+    }
+
+    /**
+     * Records that a player does not have a template after all, so that it gets sent along next time.
+     *
+     * @return {@code true} if the template was thought to be known by the player
+     */
+    public static boolean forget(ServerPlayer player, HashCode templateHash) {
+        Set<HashCode> sent = sentTemplates.get(player.connection);
+        return sent != null && sent.remove(templateHash);
+    }
+
+    /**
+     * Gets the template referenced by a dialogue opening packet, storing it if it was sent along
+     *
+     * @return the template, or {@code null} if the server referenced a template that is not in the cache
+     */
+    @ApiStatus.Internal // highly internal
+    public static @Nullable DialogueTemplate getClientTemplate(SyncedTemplate syncedTemplate) {
+        if (syncedTemplate.content().isPresent()) {
+            clientTemplates.put(syncedTemplate.hash(), syncedTemplate.content().get());
+            return syncedTemplate.content().get();
+        }
+
+        return clientTemplates.get(syncedTemplate.hash());
+    }
+
+    @ApiStatus.Internal // highly internal
+    public static void clearClientTemplates() {
+        clientTemplates.clear();
+    }
+
+    private static <K, V> Map<K, V> createLru(int capacity) {
+        // Access order, so both sides evict the least recently opened template
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    private static final class EncodedTemplate {
+        private final RegistryAccess registries;
+        private final HashCode hash;
+        private final byte[] bytes;
+        private byte @Nullable [] compressedBytes;
+        private boolean compressed;
+
+        EncodedTemplate(RegistryAccess registries, HashCode hash, byte[] bytes) {
+            this.registries = registries;
+            this.hash = hash;
+            this.bytes = bytes;
+        }
+
+        RegistryAccess registries() {
+            return this.registries;
+        }
+
+        HashCode hash() {
+            return this.hash;
+        }
+
+        byte[] bytes() {
+            return this.bytes;
+        }
+
+        /**
+         * Compresses the template the first time it gets sent to a client that supports it, as most never are
+         *
+         * @return the {@linkplain TemplateCompression#compress(byte[]) compressed} form of {@link #bytes()}, or {@code null} if not worth it
+         */
+        synchronized byte @Nullable [] compressedBytes() {   // packets can get encoded on several network threads
+            if (!this.compressed) {
+                this.compressedBytes = TemplateCompression.compress(this.bytes);
+                this.compressed = true;
+            }
+            return this.compressedBytes;
+        }
+    }
+
+    /**
+     * @param content  the template itself, only sent when the client does not have it yet
+     * @param compress whether the client {@linkplain TemplateCompression#isSupported(ServerPlayer) supports} compressed templates
+     */
+    public record SyncedTemplate(HashCode hash, Optional<DialogueTemplate> content, boolean compress) {
+        private static final StreamCodec<ByteBuf, HashCode> HASH_CODEC = ByteBufCodecs.BYTE_ARRAY.map(HashCode::fromBytes, HashCode::asBytes);
+        public static final StreamCodec<RegistryFriendlyByteBuf, SyncedTemplate> PACKET_CODEC = StreamCodec.of(
+                SyncedTemplate::write,
+                SyncedTemplate::read
+        );
+
+        private static void write(RegistryFriendlyByteBuf buf, SyncedTemplate syncedTemplate) {
+            HASH_CODEC.encode(buf, syncedTemplate.hash());
+            buf.writeBoolean(syncedTemplate.content().isPresent());
+            if (syncedTemplate.content().isPresent()) {
+                // Reusing the bytes computed for the hash rather than encoding the template again
+                EncodedTemplate encoded = getEncoded(syncedTemplate.content().get(), buf.registryAccess());
+                byte[] compressedBytes = syncedTemplate.compress() ? encoded.compressedBytes() : null;
+                if (compressedBytes != null) {
+                    VarInt.write(buf, compressedBytes.length);
+                    VarInt.write(buf, encoded.bytes().length);
+                    buf.writeBytes(compressedBytes);
+                } else {
+                    VarInt.write(buf, 0);
+                    buf.writeBytes(encoded.bytes());
+                }
+            }
+        }
+
+        private static SyncedTemplate read(RegistryFriendlyByteBuf buf) {
+            HashCode hash = HASH_CODEC.decode(buf);
+            if (!buf.readBoolean()) {
+                return new SyncedTemplate(hash, Optional.empty(), false);
+            }
+
+            int compressedSize = VarInt.read(buf);
+            if (compressedSize == 0) {
+                return new SyncedTemplate(hash, Optional.of(DialogueTemplate.PACKET_CODEC.decode(buf)), false);
+            }
+
+            int inflatedSize = VarInt.read(buf);
+            if (compressedSize < 0 || compressedSize > buf.readableBytes()) {
+                throw new DecoderException("Invalid compressed template size " + compressedSize);
+            }
+            byte[] compressed = new byte[compressedSize];
+            buf.readBytes(compressed);
+            byte[] inflated = TemplateCompression.decompress(compressed, inflatedSize);
+            RegistryFriendlyByteBuf inflatedBuf = new RegistryFriendlyByteBuf(Unpooled.wrappedBuffer(inflated), buf.registryAccess());
+            return new SyncedTemplate(hash, Optional.of(DialogueTemplate.PACKET_CODEC.decode(inflatedBuf)), true);
+        }
+    }
+
+    private DialogueTemplateCache() {}
+}
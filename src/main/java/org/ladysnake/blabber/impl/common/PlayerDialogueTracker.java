@@ -18,23 +18,28 @@
 package org.ladysnake.blabber.impl.common;
 
 import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.core.UUIDUtil;
 import net.minecraft.network.chat.ResolutionContext;
 import net.minecraft.resources.Identifier;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.level.storage.ValueInput;
 import net.minecraft.world.level.storage.ValueOutput;
 import net.minecraft.world.level.storage.loot.LootContext;
+import net.minecraft.world.level.storage.loot.LootParams;
 import net.minecraft.world.level.storage.loot.parameters.LootContextParamSets;
 import net.minecraft.world.level.storage.loot.parameters.LootContextParams;
+import net.minecraft.world.phys.Vec3;
 import org.jetbrains.annotations.Nullable;
 import org.ladysnake.blabber.Blabber;
 import org.ladysnake.blabber.impl.common.actions.CommandDialogueAction;
 import org.ladysnake.blabber.impl.common.machine.DialogueStateMachine;
+import org.ladysnake.blabber.impl.common.model.ConditionTrigger;
 import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
 import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
 import org.ladysnake.cca.api.v3.component.ComponentKey;
@@ -49,9 +54,21 @@ public final class PlayerDialogueTracker implements ServerTickingComponent {
 
     private final Player player;
     private @Nullable DialogueStateMachine currentDialogue;
+    /**
+     * The unresolved template {@link #currentDialogue} was created from
+     */
+    private @Nullable DialogueTemplate currentTemplate;
     private @Nullable Entity interlocutor;
     private @Nullable DeserializedState deserializedState;
     private int resumptionAttempts = 0;
+    private final ChoiceAvailabilityBatcher availabilityUpdates = new ChoiceAvailabilityBatcher();
+    private int lastInventoryVersion;
+    private float lastHealth;
+    /**
+     * Context in which conditions were last tested, kept as long as the player stays in place
+     */
+    private @Nullable LootContext conditionContext;
+    private @Nullable Vec3 conditionContextOrigin;
 
     public PlayerDialogueTracker(Player player) {
         this.player = player;
@@ -77,9 +94,11 @@ public final class PlayerDialogueTracker implements ServerTickingComponent {
         try {
             this.interlocutor = interlocutor;
             this.currentDialogue = prepareDialogue(id, template, start);
+            this.currentTemplate = template;
         } catch (CommandSyntaxException e) {
             this.interlocutor = null;
             this.currentDialogue = null;
+            this.currentTemplate = null;
             throw e;
         }
         this.openDialogueScreen();
@@ -88,21 +107,41 @@ public final class PlayerDialogueTracker implements ServerTickingComponent {
 
     private DialogueStateMachine prepareDialogue(Identifier id, DialogueTemplate template, @Nullable String start) throws CommandSyntaxException {
         ServerPlayer serverPlayer = ((ServerPlayer) this.player);
-        DialogueTemplate parsedTemplate = template.resolve(ResolutionContext.create(CommandDialogueAction.getSource(serverPlayer)));
-        DialogueStateMachine currentDialogue = new DialogueStateMachine(id, parsedTemplate, start);
-        this.updateConditions(serverPlayer, currentDialogue);
+        // States get resolved as the player reaches them, large dialogues rarely get fully explored
+        DialogueTemplate parsedTemplate = template.resolve(ResolutionContext.create(CommandDialogueAction.getSource(serverPlayer)), false);
+        DialogueStateMachine currentDialogue = DialogueStateMachine.createLazy(
+                id,
+                parsedTemplate,
+                start,
+                () -> ResolutionContext.create(CommandDialogueAction.getSource(serverPlayer))
+        );
+        this.updateConditions(serverPlayer, currentDialogue, 0);
         return currentDialogue;
     }
 
     public void endDialogue() {
         this.currentDialogue = null;
+        this.currentTemplate = null;
         this.interlocutor = null;
+        this.conditionContext = null;
+        this.conditionContextOrigin = null;
 
         if (this.player instanceof ServerPlayer sp && this.player.containerMenu instanceof DialogueScreenHandler) {
             sp.closeContainer();
         }
     }
 
+    /**
+     * Opens the current dialogue again with its template, for a client that did not have it when the screen first opened
+     */
+    public void resendTemplate(HashCode templateHash) {
+        // Only reopening when the server thought the client had the template, so that a confused client cannot keep asking
+        if (this.currentDialogue != null && this.player.containerMenu instanceof DialogueScreenHandler
+                && DialogueTemplateCache.forget((ServerPlayer) this.player, templateHash)) {
+            this.openDialogueScreen();
+        }
+    }
+
     public Optional<DialogueStateMachine> getCurrentDialogue() {
         return Optional.ofNullable(this.currentDialogue);
     }
@@ -115,15 +154,21 @@ public final class PlayerDialogueTracker implements ServerTickingComponent {
         DialogueStateMachine oldDialogue = this.currentDialogue;
         Entity oldInterlocutor = this.interlocutor;
         if (oldDialogue != null) {
+            Optional<DialogueTemplate> newTemplate = DialogueRegistry.getOrEmpty(oldDialogue.getId());
+
+            // The loader keeps the same template instance when the dialogue file did not change
+            if (newTemplate.isPresent() && newTemplate.get() == this.currentTemplate) {
+                return;
+            }
+
             this.endDialogue();
 
-            DialogueRegistry.getOrEmpty(oldDialogue.getId())
-                    .ifPresent(template -> this.tryResumeDialogue(
-                            oldDialogue.getId(),
-                            template,
-                            oldDialogue.getCurrentStateKey(),
-                            oldInterlocutor
-                    ));
+            newTemplate.ifPresent(template -> this.tryResumeDialogue(
+                    oldDialogue.getId(),
+                    template,
+                    oldDialogue.getCurrentStateKey(),
+                    oldInterlocutor
+            ));
         }
     }
 
@@ -174,15 +219,29 @@ public final class PlayerDialogueTracker implements ServerTickingComponent {
                     this.openDialogueScreen();
                 } else {
                     this.endDialogue();
-                    return;
                 }
             }
+        }
+    }
 
+    /**
+     * Called by the {@link DialogueConditionScheduler} once per tick
+     *
+     * @param changedTriggers the {@linkplain ConditionTrigger#mask() mask} of server-wide changes since the last tick
+     */
+    void tickConditions(int changedTriggers) {
+        if (this.currentDialogue != null) {
+            ServerPlayer serverPlayer = (ServerPlayer) this.player;
             try {
-                ChoiceAvailabilityPayload update = this.updateConditions(serverPlayer, this.currentDialogue);
+                ChoiceAvailabilityPayload update = this.updateConditions(serverPlayer, this.currentDialogue, changedTriggers | this.pollChangedTriggers());
 
                 if (update != null) {
-                    ServerPlayNetworking.send(serverPlayer, update);
+                    this.availabilityUpdates.add(update);
+                }
+
+                ChoiceAvailabilityPayload batch = this.availabilityUpdates.poll(serverPlayer.level().getServer().getTickCount());
+                if (batch != null) {
+                    ServerPlayNetworking.send(serverPlayer, batch);
                 }
             } catch (CommandSyntaxException e) {
                 throw new IllegalStateException("Error while updating dialogue conditions", e);
@@ -190,6 +249,13 @@ public final class PlayerDialogueTracker implements ServerTickingComponent {
         }
     }
 
+    /**
+     * Drops pending availability changes to a state, for when the client gets sent all of its availability
+     */
+    void discardAvailabilityUpdates(int stateId) {
+        this.availabilityUpdates.discard(stateId);
+    }
+
     private void tryResumeDialogue(Identifier id, DialogueTemplate template, String selectedState, Entity interlocutor) {
         try {
             this.startDialogue0(id, template, selectedState, interlocutor);
@@ -198,20 +264,49 @@ public final class PlayerDialogueTracker implements ServerTickingComponent {
         }
     }
 
-    private @Nullable ChoiceAvailabilityPayload updateConditions(ServerPlayer player, DialogueStateMachine currentDialogue) throws CommandSyntaxException {
+    private int pollChangedTriggers() {
+        int changedTriggers = 0;
+        int inventoryVersion = this.player.getInventory().getTimesChanged();
+        if (inventoryVersion != this.lastInventoryVersion) {
+            this.lastInventoryVersion = inventoryVersion;
+            changedTriggers |= ConditionTrigger.INVENTORY.mask();
+        }
+        float health = this.player.getHealth();
+        if (health != this.lastHealth) {
+            this.lastHealth = health;
+            changedTriggers |= ConditionTrigger.HEALTH.mask();
+        }
+        return changedTriggers;
+    }
+
+    private @Nullable ChoiceAvailabilityPayload updateConditions(ServerPlayer player, DialogueStateMachine currentDialogue, int changedTriggers) throws CommandSyntaxException {
         if (currentDialogue.hasConditions()) {
-            return currentDialogue.updateConditions(new LootContext.Builder(
-                    new net.minecraft.world.level.storage.loot.LootParams.Builder(player.level())
+            MinecraftServer server = player.level().getServer();
+            return currentDialogue.updateConditions(this.getConditionContext(player), server.reloadableRegistries().lookup(), server.getTickCount(), changedTriggers);
+        }
+        return null;
+    }
+
+    private LootContext getConditionContext(ServerPlayer player) {
+        LootContext context = this.conditionContext;
+        // Entities get a new position object whenever they move, making this a cheap check
+        if (context == null || player.position() != this.conditionContextOrigin || context.getLevel() != player.level()) {
+            context = new LootContext.Builder(
+                    new LootParams.Builder(player.level())
                             .withParameter(LootContextParams.ORIGIN, player.position())
                             .withOptionalParameter(LootContextParams.THIS_ENTITY, player)
                             .create(LootContextParamSets.COMMAND)
-            ).create(Optional.empty()));
+            ).create(Optional.empty());
+            this.conditionContext = context;
+            this.conditionContextOrigin = player.position();
         }
-        return null;
+        return context;
     }
 
     private void openDialogueScreen() {
         Preconditions.checkState(this.currentDialogue != null);
+        // The screen opening data holds the full availability
+        this.availabilityUpdates.clear();
         this.player.openMenu(new DialogueMenuProvider(this.currentDialogue, this.interlocutor));
     }
 
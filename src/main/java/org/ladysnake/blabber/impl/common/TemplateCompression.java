@@ -0,0 +1,135 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import io.netty.handler.codec.DecoderException;
+import net.fabricmc.fabric.api.networking.v1.ServerConfigurationConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerConfigurationNetworking;
+import net.minecraft.network.Connection;
+import net.minecraft.server.level.ServerPlayer;
+import org.jetbrains.annotations.Nullable;
+import org.ladysnake.blabber.impl.common.packets.TemplateCompressionPayload;
+import org.ladysnake.blabber.impl.mixin.ServerCommonPacketListenerImplAccessor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflates large dialogue templates before sending them to clients that support it.
+ *
+ * <p>Compression uses a preset dictionary of strings that commonly appear in encoded templates,
+ * so that even templates just above the {@linkplain #THRESHOLD threshold} shrink noticeably.
+ */
+public final class TemplateCompression {
+    /**
+     * Templates smaller than this many bytes are sent as-is, as compressing them would save next to nothing
+     */
+    public static final int THRESHOLD = 512;
+    /**
+     * Templates may not inflate to more than this many bytes, so that a bad packet cannot exhaust a client's memory
+     */
+    private static final int MAX_INFLATED_SIZE = 8 * 1024 * 1024;
+    /**
+     * Entity data and text component keys, with the most common ones last as deflate favours close matches
+     */
+    private static final byte[] DICTIONARY = String.join("",
+            "obfuscatedstrikethroughunderlinedinsertionshadow_colorfontfallbackscoreselectorseparatorkeybindnbtinterpretentitystorageblock",
+            "show_entityshow_itemshow_textopen_urlrun_commandsuggest_commandchange_pagecopy_to_clipboardhover_eventclick_eventactionvaluecontents",
+            "NoAIInvisibleSilentCustomNameVisibleequipmentmainhandoffhandheadchestlegsfeetcomponentscountidnamepropertiesprofile",
+            "minecraft:italicboldcolorwithtranslateextratext"
+    ).getBytes(StandardCharsets.UTF_8);
+    /**
+     * Connections that negotiated compression, which stay the same from configuration to play
+     */
+    private static final Set<Connection> supportingConnections = Collections.newSetFromMap(new WeakHashMap<>());
+
+    public static void init() {
+        ServerConfigurationConnectionEvents.CONFIGURE.register((handler, server) -> {
+            if (ServerConfigurationNetworking.canSend(handler, TemplateCompressionPayload.ID)) {
+                ServerConfigurationNetworking.send(handler, TemplateCompressionPayload.INSTANCE);
+                supportingConnections.add(((ServerCommonPacketListenerImplAccessor) handler).blabber$getConnection());
+            }
+        });
+    }
+
+    public static boolean isSupported(ServerPlayer player) {
+        return supportingConnections.contains(((ServerCommonPacketListenerImplAccessor) player.connection).blabber$getConnection());
+    }
+
+    /**
+     * @return the deflated form of {@code bytes}, or {@code null} if they are too small to be worth compressing
+     */
+    public static byte @Nullable [] compress(byte[] bytes) {
+        if (bytes.length < THRESHOLD) return null;
+
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.size() < bytes.length ? out.toByteArray() : null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static byte[] decompress(byte[] compressed, int inflatedSize) {
+        if (inflatedSize < 0 || inflatedSize > MAX_INFLATED_SIZE) {
+            throw new DecoderException("Invalid inflated template size " + inflatedSize);
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] inflated = new byte[inflatedSize];
+            int read = 0;
+            while (read < inflatedSize && !inflater.finished()) {
+                int count = inflater.inflate(inflated, read, inflatedSize - read);
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY);
+                    } else if (inflater.needsInput()) {
+                        break;
+                    }
+                }
+                read += count;
+            }
+            if (read != inflatedSize) {
+                throw new DecoderException("Compressed template inflated to " + read + " bytes, expected " + inflatedSize);
+            }
+            return inflated;
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new DecoderException("Malformed compressed template", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private TemplateCompression() {}
+}
@@ -31,6 +31,7 @@ public final class BlabberCommand {
             .requires(Permissions.require("dialogue.start", PermissionLevel.GAMEMASTERS))
             .then(DialogueSubCommand.dialogueSubtree())
             .then(SettingsSubCommand.settingsSubtree())
+            .then(StatsSubCommand.statsSubtree())
         );
     }
 }
@@ -31,8 +31,8 @@ import net.minecraft.server.permissions.PermissionLevel;
 import net.minecraft.world.entity.Entity;
 import org.jetbrains.annotations.Nullable;
 import org.ladysnake.blabber.impl.common.BlabberRegistrar;
+import org.ladysnake.blabber.impl.common.DialogueOpeningScheduler;
 import org.ladysnake.blabber.impl.common.DialogueRegistry;
-import org.ladysnake.blabber.impl.common.PlayerDialogueTracker;
 
 import java.util.Collection;
 import java.util.List;
@@ -72,13 +72,14 @@ public final class DialogueSubCommand {
             throw INVALID_EXCEPTION.create(dialogue);
         }
 
-        int count = 0;
-        for (ServerPlayer player : players) {
-            PlayerDialogueTracker.get(player).startDialogue(dialogue, interlocutor);
+        DialogueOpeningScheduler.startDialogue(players, dialogue, interlocutor);
+        if (players.size() == 1) {
+            ServerPlayer player = players.iterator().next();
             source.sendSuccess(() -> Component.translatable("blabber:commands.dialogue.start.success", dialogue.toString(), player.getDisplayName()), true);
-            count++;
+        } else {
+            source.sendSuccess(() -> Component.translatable("blabber:commands.dialogue.start.success.multiple", dialogue.toString(), players.size()), true);
         }
 
-        return count;
+        return players.size();
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.commands;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.Component;
+import org.ladysnake.blabber.impl.common.ChoiceAvailabilityBatcher;
+
+import static net.minecraft.commands.Commands.literal;
+
+public final class StatsSubCommand {
+    public static final String STATS_SUBCOMMAND = "stats";
+
+    static LiteralArgumentBuilder<CommandSourceStack> statsSubtree() {
+        return literal(STATS_SUBCOMMAND)
+                .requires(SettingsSubCommand.ALLOW_DEBUG)
+                .executes(context -> printStats(context.getSource()));
+    }
+
+    private static int printStats(CommandSourceStack source) {
+        source.sendSuccess(() -> Component.translatable(
+                "blabber:commands.stats.availability",
+                ChoiceAvailabilityBatcher.getSentPacketCount(),
+                ChoiceAvailabilityBatcher.getSuppressedPacketCount()
+        ), false);
+        return 1;
+    }
+}
@@ -48,9 +48,12 @@ public record DialogueIllustrationCollection(List<DialogueIllustration> elements
     @Override
     public DialogueIllustration resolve(ResolutionContext context) throws CommandSyntaxException {
         List<DialogueIllustration> parsedSub = new ArrayList<>(elements.size());
+        boolean changed = false;
         for (DialogueIllustration illustration : elements) {
-            parsedSub.add(illustration.resolve(context));
+            DialogueIllustration parsed = illustration.resolve(context);
+            parsedSub.add(parsed);
+            changed |= parsed != illustration;
         }
-        return new DialogueIllustrationCollection(parsedSub);
+        return changed ? new DialogueIllustrationCollection(parsedSub) : this;
     }
 }
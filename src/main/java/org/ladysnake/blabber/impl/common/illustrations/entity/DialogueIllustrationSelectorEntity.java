@@ -57,7 +57,7 @@ public class DialogueIllustrationSelectorEntity implements DialogueIllustrationE
     private static final int NO_ENTITY_FOUND = -1;
 
     private final Spec spec;
-    private int selectedEntityId;
+    private final int selectedEntityId;
 
     public DialogueIllustrationSelectorEntity(Spec spec) {
         this(spec, NO_ENTITY_FOUND);
@@ -123,6 +123,9 @@ public class DialogueIllustrationSelectorEntity implements DialogueIllustrationE
         return TYPE;
     }
 
+    /**
+     * @return a copy of this illustration pointing at the selected entity, leaving this template untouched
+     */
     @Override
     public DialogueIllustrationSelectorEntity resolve(ResolutionContext context) throws CommandSyntaxException {
         CommandSourceStack source = context.source();
@@ -130,7 +133,7 @@ public class DialogueIllustrationSelectorEntity implements DialogueIllustrationE
             EntitySelector entitySelector = new EntitySelectorParser(new StringReader(spec().selector()), true).parse();
             Entity e = entitySelector.findSingleEntity(source);
             if (e instanceof LivingEntity living) {
-                this.selectedEntityId = living.getId();
+                return new DialogueIllustrationSelectorEntity(this.spec, living.getId());
             }
         }
         return this;
@@ -27,6 +27,10 @@ public interface ChoiceResult {
     Optional<InstancedDialogueAction<?>> action();
 
     ChoiceResult DEFAULT_END = new Basic(StateType.END_DIALOGUE, Optional.empty());
+    /**
+     * Result of a choice made on the client, when the next state has not been received from the server yet
+     */
+    ChoiceResult AWAITING_STATE = new Basic(StateType.DEFAULT, Optional.empty());
 
     record Basic(StateType type, Optional<InstancedDialogueAction<?>> action) implements ChoiceResult {}
 }
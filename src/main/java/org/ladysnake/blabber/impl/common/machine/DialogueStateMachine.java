@@ -21,13 +21,12 @@ import com.google.common.collect.ImmutableList;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
 import it.unimi.dsi.fastutil.ints.Int2BooleanMap;
-import it.unimi.dsi.fastutil.ints.Int2BooleanMaps;
-import it.unimi.dsi.fastutil.ints.Int2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import net.minecraft.core.Holder;
-import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.core.HolderGetter;
 import net.minecraft.network.chat.Component;
-import net.minecraft.network.codec.ByteBufCodecs;
-import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.chat.ResolutionContext;
 import net.minecraft.resources.Identifier;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.world.level.storage.loot.LootContext;
@@ -36,20 +35,30 @@ import org.jetbrains.annotations.Nullable;
 import org.ladysnake.blabber.Blabber;
 import org.ladysnake.blabber.api.illustration.DialogueIllustration;
 import org.ladysnake.blabber.api.layout.DialogueLayout;
+import org.ladysnake.blabber.impl.common.DialogueTemplateCache;
 import org.ladysnake.blabber.impl.common.InstancedDialogueAction;
+import org.ladysnake.blabber.impl.common.model.ConditionTrigger;
 import org.ladysnake.blabber.impl.common.model.DialogueChoice;
 import org.ladysnake.blabber.impl.common.model.DialogueChoiceCondition;
+import org.ladysnake.blabber.impl.common.model.DialogueGraph;
 import org.ladysnake.blabber.impl.common.model.DialogueState;
 import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
 import org.ladysnake.blabber.impl.common.model.UnavailableAction;
 import org.ladysnake.blabber.impl.common.model.UnavailableDisplay;
 import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
+import org.ladysnake.blabber.impl.common.packets.DialogueStatesPayload;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 public final class DialogueStateMachine {
@@ -57,48 +66,164 @@ public final class DialogueStateMachine {
 
     private final Identifier id;
     private final DialogueTemplate template;
-    private final Map<String, Int2BooleanMap> conditionalChoices;
-    private @Nullable String currentStateKey;
+    private DialogueGraph graph;
+    /**
+     * The states of the template, indexed like in the {@linkplain #graph compiled graph}
+     */
+    private DialogueState[] states;
+    /**
+     * For each conditional choice in the graph, whether its condition was fulfilled when last checked
+     */
+    private final BitSet fulfilledConditions;
+    /**
+     * States which still hold context-sensitive text, to be resolved once the dialogue gets close to them
+     */
+    private final BitSet unresolvedStates;
+    /**
+     * The states the client knows about, in the order they were revealed.
+     *
+     * <p>Positions in this table are the ids with which packets refer to states, as graph indices differ between
+     * the server and clients that only know part of the dialogue.
+     */
+    private final IntList stateTable = new IntArrayList();
+    /**
+     * For each state in the graph, its position in the {@link #stateTable}, or {@code -1} if it has not been revealed
+     */
+    private int[] stateIds;
+    /**
+     * How many entries of the {@link #stateTable} were already sent to the client
+     */
+    private int syncedStateCount;
+    /**
+     * Factory for resolution contexts, only present on the server
+     */
+    private final @Nullable Supplier<ResolutionContext> resolutionContext;
+    /**
+     * On the client, a state the player chose to move to which has not been revealed yet
+     */
+    private @Nullable String awaitedState;
+    /**
+     * The predicate of each conditional choice, as found in {@link #conditionSource}
+     */
+    private LootItemCondition[] conditions = new LootItemCondition[0];
+    /**
+     * Recursion guards for {@link #conditions}, created once rather than on every test
+     */
+    private LootContext.VisitedEntry<?>[] visitedEntries = new LootContext.VisitedEntry<?>[0];
+    private int[] checkIntervals;
+    private int[] checkTriggers;
+    /**
+     * The registries predicates were last looked up from, which get swapped out when data packs are reloaded
+     */
+    private @Nullable HolderGetter.Provider conditionSource;
+    /**
+     * The states which conditions get tested, namely the current state and every state it leads to
+     */
+    private final BitSet conditionScope;
+    /**
+     * States which entered the {@linkplain #conditionScope condition scope} since the last update
+     */
+    private final BitSet staleStates;
+    private int currentState = DialogueGraph.NO_STATE;
     private ImmutableList<AvailableChoice> availableChoices = ImmutableList.of();
 
-    public DialogueStateMachine(Identifier id, DialogueTemplate template, @Nullable String start) {
+    /**
+     * @param stateKeys the table of state keys, which ids packets use to refer to states
+     * @param stateId   the id of the current state in the table
+     */
+    public DialogueStateMachine(Identifier id, DialogueTemplate template, List<String> stateKeys, int stateId) {
+        this(id, template, (Supplier<ResolutionContext>) null);
+        this.loadStateTable(stateKeys);
+        this.selectState(this.getStateById(stateId));
+    }
+
+    private DialogueStateMachine(Identifier id, DialogueTemplate template, @Nullable Supplier<ResolutionContext> resolutionContext) {
         this.template = template;
         this.id = id;
-        this.conditionalChoices = gatherConditionalChoices(template);
-        this.selectState(start == null ? template.start() : start);
-    }
-
-    private static Map<String, Int2BooleanMap> gatherConditionalChoices(DialogueTemplate template) {
-        Map<String, Int2BooleanMap> conditionalChoices = new HashMap<>();
-        for (Map.Entry<String, DialogueState> entry : template.states().entrySet()) {
-            List<DialogueChoice> choices = entry.getValue().choices();
-            Int2BooleanMap m = new Int2BooleanOpenHashMap();
-            for (int i = 0; i < choices.size(); i++) {
-                DialogueChoice choice = choices.get(i);
-                if (choice.condition().isPresent()) {
-                    m.put(i, false);
-                }
-            }
-            if (!m.isEmpty()) {
-                conditionalChoices.put(entry.getKey(), m);
+        this.graph = template.graph();
+        this.states = new DialogueState[this.graph.stateCount()];
+        for (int state = 0; state < this.states.length; state++) {
+            this.states[state] = template.states().get(this.graph.getStateKey(state));
+        }
+        this.fulfilledConditions = new BitSet(this.graph.choiceCount());
+        this.checkIntervals = new int[this.graph.choiceCount()];
+        this.checkTriggers = new int[this.graph.choiceCount()];
+        this.conditionScope = new BitSet(this.states.length);
+        this.staleStates = new BitSet(this.states.length);
+        this.unresolvedStates = new BitSet(this.states.length);
+        this.stateIds = new int[this.states.length];
+        Arrays.fill(this.stateIds, -1);
+        this.resolutionContext = resolutionContext;
+        if (resolutionContext != null) {
+            for (int state = 0; state < this.states.length; state++) {
+                this.unresolvedStates.set(state, this.graph.isContextSensitive(state));
             }
         }
-        return conditionalChoices;
     }
 
-    public static final StreamCodec<RegistryFriendlyByteBuf, DialogueStateMachine> PACKET_CODEC = StreamCodec.composite(
-            Identifier.STREAM_CODEC, DialogueStateMachine::getId,
-            DialogueTemplate.PACKET_CODEC, m -> m.template,
-            ByteBufCodecs.STRING_UTF8, DialogueStateMachine::getCurrentStateKey,
-            DialogueStateMachine::new
-    );
+    /**
+     * Creates a state machine that resolves the states of a dialogue as they get reached, instead of all at once.
+     *
+     * <p>Whenever a state gets selected, it gets resolved and revealed to the client along with every state it leads to,
+     * so that clients always know the text of the states they can move to, and nothing of the branches they cannot reach yet.
+     *
+     * @param template a template which {@linkplain DialogueTemplate#resolve(ResolutionContext, boolean) states were left unresolved}
+     * @param resolutionContext a factory for the context with which states get resolved
+     */
+    public static DialogueStateMachine createLazy(Identifier id, DialogueTemplate template, @Nullable String start, Supplier<ResolutionContext> resolutionContext) throws CommandSyntaxException {
+        DialogueStateMachine machine = new DialogueStateMachine(id, template, resolutionContext);
+        String startKey = start == null ? template.start() : start;
+        int startState = machine.graph.getStateIndex(startKey);
+        if (startState == DialogueGraph.NO_STATE) {
+            throw new IllegalArgumentException(startKey + " is not an available dialogue state");
+        }
+        // Resolving ahead of selection lets errors in the first states surface to whoever started the dialogue
+        machine.prepareAround(startState);
+        machine.selectState(startState);
+        // The screen opening data already includes those states
+        machine.syncedStateCount = machine.stateTable.size();
+        return machine;
+    }
+
+    /**
+     * @return the template of this dialogue as the client should see it, with only the states revealed so far
+     */
+    public DialogueTemplate getSyncedTemplate() {
+        if (this.resolutionContext == null) {
+            return this.template;
+        }
+
+        BitSet revealedStates = new BitSet(this.states.length);
+        boolean resolvedAnyState = false;
+        for (int i = 0; i < this.stateTable.size(); i++) {
+            int state = this.stateTable.getInt(i);
+            revealedStates.set(state);
+            resolvedAnyState |= this.graph.isContextSensitive(state);
+        }
 
-    private Map<String, DialogueState> getStates() {
-        return this.template.states();
+        if (resolvedAnyState) {
+            return this.createPartialTemplate(revealedStates);
+        }
+        return DialogueTemplateCache.getPartialTemplate(this.template, revealedStates, () -> this.createPartialTemplate(revealedStates));
+    }
+
+    private DialogueTemplate createPartialTemplate(BitSet revealedStates) {
+        Map<String, DialogueState> syncedStates = new HashMap<>(revealedStates.cardinality());
+        for (int state = revealedStates.nextSetBit(0); state >= 0; state = revealedStates.nextSetBit(state + 1)) {
+            syncedStates.put(this.graph.getStateKey(state), this.states[state]);
+        }
+        return new DialogueTemplate(
+                this.template.name(),
+                this.template.start(),
+                this.template.unskippable(),
+                syncedStates,
+                this.template.illustrations(),
+                this.template.layout()
+        );
     }
 
     private DialogueState getCurrentState() {
-        return getStates().get(this.getCurrentStateKey());
+        return this.states[this.currentState];
     }
 
     public Identifier getId() {
@@ -121,6 +246,28 @@ public final class DialogueStateMachine {
         return this.getCurrentState().illustrations();
     }
 
+    /**
+     * @return the illustrations that can be shown in the current state or right after the next choice
+     */
+    public Set<String> getNearbyIllustrations() {
+        Set<String> illustrations = new LinkedHashSet<>();
+        this.collectIllustrations(this.currentState, illustrations);
+        for (int choice = 0; choice < this.graph.choiceCount(this.currentState); choice++) {
+            int nextState = this.graph.getNextState(this.graph.getChoiceIndex(this.currentState, choice));
+            if (nextState != DialogueGraph.NO_STATE) {
+                this.collectIllustrations(nextState, illustrations);
+            }
+        }
+        return illustrations;
+    }
+
+    private void collectIllustrations(int state, Set<String> illustrations) {
+        illustrations.addAll(this.states[state].illustrations());
+        for (DialogueChoice choice : this.states[state].choices()) {
+            illustrations.addAll(choice.illustrations());
+        }
+    }
+
     public Map<String, DialogueIllustration> getIllustrations() {
         return this.template.illustrations();
     }
@@ -130,37 +277,102 @@ public final class DialogueStateMachine {
     }
 
     public boolean hasConditions() {
-        return !this.conditionalChoices.isEmpty();
+        return this.graph.hasConditions();
     }
 
-    public @Nullable ChoiceAvailabilityPayload updateConditions(LootContext context) throws CommandSyntaxException {
+    /**
+     * Tests the conditions of this dialogue which are due this tick.
+     *
+     * <p>Only choices of the current state and of the states it leads to get tested, as those are the only ones
+     * a player can see before the next update. States which just came into that scope get all their conditions tested.
+     *
+     * <p>Predicates are looked up the first time this is called, and again after each data pack reload.
+     * Every condition in scope gets tested on those calls, regardless of its {@linkplain DialogueChoiceCondition#checkInterval() interval}.
+     *
+     * @param predicates      the registries to look predicates up from, which get replaced when data packs are reloaded
+     * @param tick            the current server tick, which check intervals are counted from
+     * @param changedTriggers the {@linkplain ConditionTrigger#mask() mask} of player state changes since the last update
+     */
+    public @Nullable ChoiceAvailabilityPayload updateConditions(LootContext context, HolderGetter.Provider predicates, int tick, int changedTriggers) throws CommandSyntaxException {
+        boolean fullUpdate = predicates != this.conditionSource;
+        if (fullUpdate) {
+            this.resolveConditions(predicates);
+        }
+
         ChoiceAvailabilityPayload ret = null;
-        for (Map.Entry<String, Int2BooleanMap> conditionalState : this.conditionalChoices.entrySet()) {
-            List<DialogueChoice> availableChoices = getStates().get(conditionalState.getKey()).choices();
-            for (Int2BooleanMap.Entry conditionalChoice : conditionalState.getValue().int2BooleanEntrySet()) {
-                ResourceKey<LootItemCondition> predicateId = availableChoices.get(conditionalChoice.getIntKey()).condition().orElseThrow().predicate();
-                Optional<LootItemCondition> condition = context.getLevel().getServer()
-                        .reloadableRegistries()
-                        .lookup()
-                        .get(predicateId)
-                        .map(Holder::value);
-                if (condition.isEmpty()) throw INVALID_PREDICATE_EXCEPTION.create(predicateId);
-                boolean testResult = runTest(condition.get(), context);
-                if (testResult != conditionalChoice.setValue(testResult)) {
+        for (int state = this.conditionScope.nextSetBit(0); state >= 0; state = this.conditionScope.nextSetBit(state + 1)) {
+            boolean stateUpdate = fullUpdate || this.staleStates.get(state);
+            int firstChoice = this.graph.getChoiceIndex(state, 0);
+            int endChoice = firstChoice + this.graph.choiceCount(state);
+            for (int choiceIndex = this.graph.nextConditionalChoice(firstChoice); choiceIndex >= 0 && choiceIndex < endChoice; choiceIndex = this.graph.nextConditionalChoice(choiceIndex + 1)) {
+                if (!stateUpdate && (this.checkTriggers[choiceIndex] & changedTriggers) == 0) {
+                    int interval = this.checkIntervals[choiceIndex];
+                    // Offsetting by the choice index spreads out choices that share the same interval
+                    if (interval > 1 && (tick + choiceIndex) % interval != 0) continue;
+                }
+
+                boolean testResult = runTest(this.conditions[choiceIndex], this.visitedEntries[choiceIndex], context);
+                if (testResult != this.fulfilledConditions.get(choiceIndex)) {
+                    this.fulfilledConditions.set(choiceIndex, testResult);
+                    // States that failed to be revealed get their availability sent along with them later
+                    if (this.stateIds[state] < 0) continue;
                     if (ret == null) ret = new ChoiceAvailabilityPayload();
-                    ret.markUpdated(conditionalState.getKey(), conditionalChoice.getIntKey(), testResult);
+                    ret.markUpdated(this.stateIds[state], this.graph.getLocalChoice(choiceIndex), testResult);
                 }
             }
         }
+        this.staleStates.clear();
+        return ret;
+    }
+
+    private void resolveConditions(HolderGetter.Provider predicates) throws CommandSyntaxException {
+        LootItemCondition[] conditions = new LootItemCondition[this.graph.choiceCount()];
+        LootContext.VisitedEntry<?>[] visitedEntries = new LootContext.VisitedEntry<?>[this.graph.choiceCount()];
+        for (int choiceIndex = this.graph.nextConditionalChoice(0); choiceIndex >= 0; choiceIndex = this.graph.nextConditionalChoice(choiceIndex + 1)) {
+            DialogueChoiceCondition condition = this.getChoice(choiceIndex).condition().orElseThrow();
+            ResourceKey<LootItemCondition> predicateId = condition.predicate();
+            conditions[choiceIndex] = predicates.get(predicateId)
+                    .map(Holder::value)
+                    .orElseThrow(() -> INVALID_PREDICATE_EXCEPTION.create(predicateId));
+            visitedEntries[choiceIndex] = LootContext.createVisitedEntry(conditions[choiceIndex]);
+            this.checkIntervals[choiceIndex] = condition.checkInterval();
+            this.checkTriggers[choiceIndex] = ConditionTrigger.toMask(condition.checkOn());
+        }
+        this.conditions = conditions;
+        this.visitedEntries = visitedEntries;
+        this.conditionSource = predicates;
+    }
+
+    private DialogueChoice getChoice(int choiceIndex) {
+        return this.states[this.graph.getOwnerState(choiceIndex)].choices().get(this.graph.getLocalChoice(choiceIndex));
+    }
+
+    /**
+     * @return the availability of the choices in the current state only
+     */
+    public ChoiceAvailabilityPayload createCurrentAvailabilityPacket() {
+        ChoiceAvailabilityPayload ret = new ChoiceAvailabilityPayload();
+        this.writeAvailability(ret, this.currentState);
         return ret;
     }
 
     public ChoiceAvailabilityPayload createFullAvailabilityUpdatePacket() {
-        return new ChoiceAvailabilityPayload(this.conditionalChoices);
+        ChoiceAvailabilityPayload ret = new ChoiceAvailabilityPayload();
+        for (int i = 0; i < this.stateTable.size(); i++) {
+            this.writeAvailability(ret, this.stateTable.getInt(i));
+        }
+        return ret;
+    }
+
+    private void writeAvailability(ChoiceAvailabilityPayload payload, int state) {
+        int firstChoice = this.graph.getChoiceIndex(state, 0);
+        int endChoice = firstChoice + this.graph.choiceCount(state);
+        for (int choiceIndex = this.graph.nextConditionalChoice(firstChoice); choiceIndex >= 0 && choiceIndex < endChoice; choiceIndex = this.graph.nextConditionalChoice(choiceIndex + 1)) {
+            payload.markUpdated(this.stateIds[state], this.graph.getLocalChoice(choiceIndex), this.fulfilledConditions.get(choiceIndex));
+        }
     }
 
-    private static boolean runTest(LootItemCondition condition, LootContext context) {
-        LootContext.VisitedEntry<LootItemCondition> lootEntry = LootContext.createVisitedEntry(condition);
+    private static boolean runTest(LootItemCondition condition, LootContext.VisitedEntry<?> lootEntry, LootContext context) {
         context.pushVisitedElement(lootEntry);
         boolean testResult = condition.test(context);
         context.popVisitedElement(lootEntry);
@@ -168,61 +380,245 @@ public final class DialogueStateMachine {
     }
 
     public void applyAvailabilityUpdate(ChoiceAvailabilityPayload payload) {
-        payload.updatedChoices().forEach((stateKey, choiceIndices) -> {
-            Int2BooleanMap conditionalState = this.conditionalChoices.get(stateKey);
+        payload.updatedChoices().forEach((stateId, choiceIndices) -> {
+            int state = this.getStateById(stateId);
             for (Int2BooleanMap.Entry updatedChoice : choiceIndices.int2BooleanEntrySet()) {
-                conditionalState.put(updatedChoice.getIntKey(), updatedChoice.getBooleanValue());
+                this.fulfilledConditions.set(this.graph.getChoiceIndex(state, updatedChoice.getIntKey()), updatedChoice.getBooleanValue());
             }
-            this.availableChoices = this.rebuildAvailableChoices();
         });
+        this.availableChoices = this.rebuildAvailableChoices();
     }
 
     public boolean isAvailable(int choice) {
-        return this.conditionalChoices.getOrDefault(this.currentStateKey, Int2BooleanMaps.EMPTY_MAP).getOrDefault(choice, true);
+        int choiceIndex = this.graph.getChoiceIndex(this.currentState, choice);
+        return !this.graph.isConditional(choiceIndex) || this.fulfilledConditions.get(choiceIndex);
     }
 
     public Optional<InstancedDialogueAction<?>> getStartAction() {
-        return this.getStates().get(this.template.start()).action();
+        return this.template.states().get(this.template.start()).action();
     }
 
     /**
      * @throws IllegalStateException if making an invalid choice
      */
     public ChoiceResult choose(int choice) {
-        if (choice == AvailableChoice.ESCAPE_HATCH.originalChoiceIndex() && IntStream.range(0, this.getCurrentState().choices().size()).noneMatch(this::isAvailable)) {
-            Blabber.LOGGER.warn("(Blabber) Escape hatch used on {}#{}", this.getId(), this.currentStateKey);
+        if (choice == AvailableChoice.ESCAPE_HATCH.originalChoiceIndex() && IntStream.range(0, this.graph.choiceCount(this.currentState)).noneMatch(this::isAvailable)) {
+            Blabber.LOGGER.warn("(Blabber) Escape hatch used on {}#{}", this.getId(), this.getCurrentStateKey());
             return ChoiceResult.DEFAULT_END;
         }
 
         this.validateChoice(choice);
-        return this.selectState(this.getCurrentState().getNextState(choice));
+        int nextState = this.graph.getNextState(this.graph.getChoiceIndex(this.currentState, choice));
+        if (nextState == DialogueGraph.NO_STATE) {
+            if (this.resolutionContext == null) {
+                // The player went faster than the server could reveal the next states, wait for them
+                this.awaitedState = this.getCurrentState().getNextState(choice);
+                this.availableChoices = this.rebuildAvailableChoices();
+                return ChoiceResult.AWAITING_STATE;
+            }
+            throw new IllegalArgumentException(this.getCurrentState().getNextState(choice) + " is not an available dialogue state");
+        }
+        return this.selectState(nextState);
     }
 
     private void validateChoice(int choice) {
-        if (choice < 0 || choice >= this.getCurrentState().choices().size()) {
-            throw new IllegalStateException("only choices 0 to %d available".formatted(this.getCurrentState().choices().size() - 1));
+        int choiceCount = this.graph.choiceCount(this.currentState);
+        if (choice < 0 || choice >= choiceCount) {
+            throw new IllegalStateException("only choices 0 to %d available".formatted(choiceCount - 1));
         } else if (!this.isAvailable(choice)) {
             throw new IllegalStateException("condition %s is not fulfilled".formatted(this.getCurrentState().choices().get(choice).condition()));
         }
     }
 
     public DialogueState selectState(String state) {
-        if (!this.getStates().containsKey(state)) {
+        int stateIndex = this.graph.getStateIndex(state);
+        if (stateIndex == DialogueGraph.NO_STATE) {
             throw new IllegalArgumentException(state + " is not an available dialogue state");
         }
-        this.currentStateKey = state;
-        DialogueState currentState = this.getStates().get(state);
+        this.awaitedState = null;
+        return this.selectState(stateIndex);
+    }
+
+    /**
+     * @param stateId the position of the state in the table of states known by the client
+     */
+    public DialogueState selectStateById(int stateId) {
+        int state = this.getStateById(stateId);
+        this.awaitedState = null;
+        return this.selectState(state);
+    }
+
+    private DialogueState selectState(int state) {
+        if (this.resolutionContext != null) {
+            try {
+                this.prepareAround(state);
+            } catch (CommandSyntaxException e) {
+                Blabber.LOGGER.error("(Blabber) Failed to resolve dialogue state {} of {}", this.graph.getStateKey(state), this.id, e);
+            }
+        }
+        this.currentState = state;
+        this.updateConditionScope(state);
         this.availableChoices = rebuildAvailableChoices();
-        return currentState;
+        return this.states[state];
+    }
+
+    private void updateConditionScope(int state) {
+        BitSet previousScope = (BitSet) this.conditionScope.clone();
+        this.conditionScope.clear();
+        this.conditionScope.set(state);
+        // Clients move to the next state on their own, so they need to know which choices are available there too
+        for (int choice = 0; choice < this.graph.choiceCount(state); choice++) {
+            int nextState = this.graph.getNextState(this.graph.getChoiceIndex(state, choice));
+            if (nextState != DialogueGraph.NO_STATE) {
+                this.conditionScope.set(nextState);
+            }
+        }
+        previousScope.flip(0, this.states.length);
+        previousScope.and(this.conditionScope);
+        this.staleStates.or(previousScope);
+    }
+
+    private void prepareAround(int state) throws CommandSyntaxException {
+        assert this.resolutionContext != null;
+        this.prepareState(state);
+        // Clients move to the next state on their own, so those have to be ready ahead of time
+        for (int choice = 0; choice < this.graph.choiceCount(state); choice++) {
+            int nextState = this.graph.getNextState(this.graph.getChoiceIndex(state, choice));
+            if (nextState != DialogueGraph.NO_STATE) {
+                this.prepareState(nextState);
+            }
+        }
+    }
+
+    private void prepareState(int state) throws CommandSyntaxException {
+        assert this.resolutionContext != null;
+        if (this.unresolvedStates.get(state)) {
+            this.states[state] = this.states[state].resolve(this.resolutionContext.get());
+            this.unresolvedStates.clear(state);
+        }
+        if (this.stateIds[state] < 0) {
+            this.stateIds[state] = this.stateTable.size();
+            this.stateTable.add(state);
+        }
+    }
+
+    private void loadStateTable(List<String> stateKeys) {
+        for (String stateKey : stateKeys) {
+            int state = this.graph.getStateIndex(stateKey);
+            if (state == DialogueGraph.NO_STATE) throw new IllegalArgumentException(stateKey + " is not an available dialogue state");
+            this.stateIds[state] = this.stateTable.size();
+            this.stateTable.add(state);
+        }
+    }
+
+    private int getStateById(int stateId) {
+        if (stateId < 0 || stateId >= this.stateTable.size()) {
+            throw new IllegalArgumentException(stateId + " is not a known dialogue state id");
+        }
+        return this.stateTable.getInt(stateId);
+    }
+
+    /**
+     * @return the keys of the states known by the client, in the order of their ids
+     */
+    public List<String> getStateKeyTable() {
+        List<String> stateKeys = new ArrayList<>(this.stateTable.size());
+        for (int i = 0; i < this.stateTable.size(); i++) {
+            stateKeys.add(this.graph.getStateKey(this.stateTable.getInt(i)));
+        }
+        return stateKeys;
+    }
+
+    public int getCurrentStateId() {
+        return this.stateIds[this.currentState];
+    }
+
+    /**
+     * @return a packet containing the states that were revealed since the last call, or {@code null} if there are none
+     */
+    public @Nullable DialogueStatesPayload createStatesPacket() {
+        if (this.syncedStateCount == this.stateTable.size()) return null;
+
+        Map<String, DialogueState> newStates = new LinkedHashMap<>();
+        ChoiceAvailabilityPayload availability = new ChoiceAvailabilityPayload();
+        for (int i = this.syncedStateCount; i < this.stateTable.size(); i++) {
+            int state = this.stateTable.getInt(i);
+            newStates.put(this.graph.getStateKey(state), this.states[state]);
+            this.writeAvailability(availability, state);
+        }
+        DialogueStatesPayload payload = new DialogueStatesPayload(this.syncedStateCount, newStates, availability);
+        this.syncedStateCount = this.stateTable.size();
+        return payload;
+    }
+
+    /**
+     * Merges states sent by the server into this client-side dialogue.
+     *
+     * <p>New states get appended to the tables of this dialogue, so that known states and choices keep their indices.
+     * If the player was waiting for one of them, the dialogue moves to it.
+     *
+     * @return the state the player was waiting for, if it just got revealed
+     */
+    public @Nullable DialogueState addStates(DialogueStatesPayload payload) {
+        Map<String, DialogueState> addedStates = new LinkedHashMap<>();
+        int stateId = payload.firstStateId();
+        if (stateId > this.stateTable.size()) {
+            throw new IllegalArgumentException("Missing dialogue state ids before " + stateId);
+        }
+        for (Map.Entry<String, DialogueState> revealedState : payload.states().entrySet()) {
+            int state = this.graph.getStateIndex(revealedState.getKey());
+            if (state == DialogueGraph.NO_STATE) {
+                addedStates.put(revealedState.getKey(), revealedState.getValue());
+            } else {
+                this.states[state] = revealedState.getValue();
+            }
+        }
+
+        if (!addedStates.isEmpty()) {
+            int knownStateCount = this.states.length;
+            this.graph = this.graph.append(this.states, addedStates);
+            this.states = Arrays.copyOf(this.states, this.graph.stateCount());
+            for (int state = knownStateCount; state < this.states.length; state++) {
+                this.states[state] = addedStates.get(this.graph.getStateKey(state));
+            }
+            this.stateIds = Arrays.copyOf(this.stateIds, this.states.length);
+            Arrays.fill(this.stateIds, knownStateCount, this.states.length, -1);
+            this.checkIntervals = Arrays.copyOf(this.checkIntervals, this.graph.choiceCount());
+            this.checkTriggers = Arrays.copyOf(this.checkTriggers, this.graph.choiceCount());
+        }
+
+        for (String stateKey : payload.states().keySet()) {
+            int state = this.graph.getStateIndex(stateKey);
+            if (stateId < this.stateTable.size()) {
+                this.stateIds[this.stateTable.getInt(stateId)] = -1;
+                this.stateTable.set(stateId, state);
+            } else {
+                this.stateTable.add(state);
+            }
+            this.stateIds[state] = stateId++;
+        }
+
+        DialogueState reachedState = null;
+        if (this.awaitedState != null && payload.states().containsKey(this.awaitedState)) {
+            reachedState = this.selectState(this.awaitedState);
+        } else {
+            this.updateConditionScope(this.currentState);
+        }
+        this.applyAvailabilityUpdate(payload.availability());
+        return reachedState;
     }
 
     private ImmutableList<AvailableChoice> rebuildAvailableChoices() {
+        if (this.awaitedState != null) {
+            return ImmutableList.of();
+        }
+
         ImmutableList.Builder<AvailableChoice> newChoices = ImmutableList.builder();
         List<DialogueChoice> availableChoices = this.getCurrentState().choices();
         boolean allUnavailable = true;
         for (int i = 0; i < availableChoices.size(); i++) {
             DialogueChoice c = availableChoices.get(i);
-            boolean available = conditionalChoices.getOrDefault(this.currentStateKey, Int2BooleanMaps.EMPTY_MAP).getOrDefault(i, true);
+            boolean available = this.isAvailable(i);
             Optional<UnavailableAction> whenUnavailable = c.condition().map(DialogueChoiceCondition::whenUnavailable);
             allUnavailable &= !available;
             if (available || (whenUnavailable.filter(t -> t.display() == UnavailableDisplay.GRAYED_OUT).isPresent())) {
@@ -235,7 +631,7 @@ public final class DialogueStateMachine {
             }
         }
         if (allUnavailable) {
-            Blabber.LOGGER.warn("[Blabber] No choice available in state '{}' of {} ({} were all unavailable)", this.currentStateKey, this.id, availableChoices);
+            Blabber.LOGGER.warn("[Blabber] No choice available in state '{}' of {} ({} were all unavailable)", this.getCurrentStateKey(), this.id, availableChoices);
             newChoices.add(AvailableChoice.ESCAPE_HATCH);
         }
         return newChoices.build();
@@ -246,7 +642,10 @@ public final class DialogueStateMachine {
     }
 
     public String getCurrentStateKey() {
-        return Objects.requireNonNull(this.currentStateKey, () -> this + " has not been initialized !");
+        if (this.currentState == DialogueGraph.NO_STATE) {
+            throw new IllegalStateException(this + " has not been initialized !");
+        }
+        return this.graph.getStateKey(this.currentState);
     }
 
     public boolean isUnskippable() {
@@ -255,6 +654,6 @@ public final class DialogueStateMachine {
 
     @Override
     public String toString() {
-        return "DialogueStateMachine" + this.getStates();
+        return "DialogueStateMachine" + this.template.states();
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.model;
+
+import com.mojang.serialization.Codec;
+import net.minecraft.util.StringRepresentable;
+
+import java.util.Collection;
+
+/**
+ * A change in player state that may affect the outcome of a choice condition
+ */
+public enum ConditionTrigger implements StringRepresentable {
+    INVENTORY("inventory"), HEALTH("health"), SCOREBOARD("scoreboard");
+
+    public static final Codec<ConditionTrigger> CODEC = StringRepresentable.fromEnum(ConditionTrigger::values);
+
+    private final String id;
+
+    ConditionTrigger(String id) {
+        this.id = id;
+    }
+
+    public int mask() {
+        return 1 << this.ordinal();
+    }
+
+    public static int toMask(Collection<ConditionTrigger> triggers) {
+        int mask = 0;
+        for (ConditionTrigger trigger : triggers) {
+            mask |= trigger.mask();
+        }
+        return mask;
+    }
+
+    @Override
+    public String getSerializedName() {
+        return this.id;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.model;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.ComponentContents;
+import net.minecraft.network.chat.HoverEvent;
+import net.minecraft.network.chat.contents.KeybindContents;
+import net.minecraft.network.chat.contents.PlainTextContents;
+import net.minecraft.network.chat.contents.TranslatableContents;
+
+import java.util.Optional;
+
+/**
+ * Tells apart dialogue content that depends on who is reading it from content that can be shared as-is.
+ *
+ * <p>The analysis is conservative: only content types that are known to come out of
+ * {@link net.minecraft.network.chat.ComponentUtils#resolve} unchanged are considered static,
+ * and anything else (selectors, scores, NBT, or content added by other mods) is assumed to need resolution.
+ */
+final class ContextSensitivity {
+    static boolean isContextSensitive(DialogueState state) {
+        if (isContextSensitive(state.text())) return true;
+
+        for (DialogueChoice choice : state.choices()) {
+            if (isContextSensitive(choice.text())) return true;
+
+            Optional<DialogueChoiceCondition> condition = choice.condition();
+            if (condition.isPresent()) {
+                Optional<Component> message = condition.get().whenUnavailable().message();
+                if (message.isPresent() && isContextSensitive(message.get())) return true;
+            }
+        }
+
+        return false;
+    }
+
+    static boolean isContextSensitive(Component component) {
+        if (!isStatic(component.getContents())) return true;
+
+        // Hover text gets resolved along with the component it is attached to
+        if (component.getStyle().getHoverEvent() instanceof HoverEvent.ShowText(Component hoverText) && isContextSensitive(hoverText)) {
+            return true;
+        }
+
+        for (Component sibling : component.getSiblings()) {
+            if (isContextSensitive(sibling)) return true;
+        }
+
+        return false;
+    }
+
+    private static boolean isStatic(ComponentContents contents) {
+        if (contents instanceof PlainTextContents || contents instanceof KeybindContents) return true;
+
+        if (contents instanceof TranslatableContents translatable) {
+            for (Object arg : translatable.getArgs()) {
+                if (arg instanceof Component c && isContextSensitive(c)) return false;
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    private ContextSensitivity() {}
+}
@@ -25,26 +25,53 @@ import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.chat.ResolutionContext;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.resources.ResourceKey;
+import net.minecraft.util.ExtraCodecs;
 import net.minecraft.world.level.storage.loot.predicates.LootItemCondition;
 import org.ladysnake.blabber.Blabber;
 
-public record DialogueChoiceCondition(ResourceKey<LootItemCondition> predicate, UnavailableAction whenUnavailable) {
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @param checkInterval how many ticks to wait between two tests of the predicate
+ * @param checkOn       player state changes which cause the predicate to be tested again right away
+ */
+public record DialogueChoiceCondition(ResourceKey<LootItemCondition> predicate, UnavailableAction whenUnavailable, int checkInterval, List<ConditionTrigger> checkOn) {
     public static final ResourceKey<LootItemCondition> DUMMY_CONDITION = ResourceKey.create(Registries.PREDICATE, Blabber.id("client_dummy"));
+    /**
+     * Default interval for conditions that declare what they depend on, as a safety net for changes that go unnoticed
+     */
+    public static final int DEFAULT_FALLBACK_INTERVAL = 100;
     public static final Codec<DialogueChoiceCondition> CODEC = RecordCodecBuilder.create(instance -> instance.group(
             ResourceKey.codec(Registries.PREDICATE).fieldOf("predicate").forGetter(DialogueChoiceCondition::predicate),
-            UnavailableAction.CODEC.fieldOf("when_unavailable").forGetter(DialogueChoiceCondition::whenUnavailable)
-    ).apply(instance, DialogueChoiceCondition::new));
+            UnavailableAction.CODEC.fieldOf("when_unavailable").forGetter(DialogueChoiceCondition::whenUnavailable),
+            ExtraCodecs.POSITIVE_INT.optionalFieldOf("check_interval").forGetter(c -> c.checkInterval() == defaultInterval(c.checkOn()) ? Optional.empty() : Optional.of(c.checkInterval())),
+            ConditionTrigger.CODEC.listOf().optionalFieldOf("check_on", List.of()).forGetter(DialogueChoiceCondition::checkOn)
+    ).apply(instance, (predicate, whenUnavailable, checkInterval, checkOn) -> new DialogueChoiceCondition(
+            predicate,
+            whenUnavailable,
+            checkInterval.orElse(defaultInterval(checkOn)),
+            checkOn
+    )));
     public static final StreamCodec<FriendlyByteBuf, DialogueChoiceCondition> PACKET_CODEC = StreamCodec.composite(
             // Not writing the condition, it is handled serverside
             StreamCodec.ofMember((value, buf) -> {}, buf -> DUMMY_CONDITION), DialogueChoiceCondition::predicate,
             UnavailableAction.PACKET_CODEC, DialogueChoiceCondition::whenUnavailable,
+            StreamCodec.ofMember((value, buf) -> {}, buf -> 1), DialogueChoiceCondition::checkInterval,
+            StreamCodec.ofMember((value, buf) -> {}, buf -> List.of()), DialogueChoiceCondition::checkOn,
             DialogueChoiceCondition::new
     );
 
+    private static int defaultInterval(List<ConditionTrigger> checkOn) {
+        return checkOn.isEmpty() ? 1 : DEFAULT_FALLBACK_INTERVAL;
+    }
+
     public DialogueChoiceCondition resolve(ResolutionContext context) throws CommandSyntaxException {
         return new DialogueChoiceCondition(
                 predicate(),
-                whenUnavailable().resolve(context)
+                whenUnavailable().resolve(context),
+                checkInterval(),
+                checkOn()
         );
     }
 }
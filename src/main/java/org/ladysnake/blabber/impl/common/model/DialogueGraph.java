@@ -0,0 +1,231 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.model;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled view of the structure of a {@link DialogueTemplate}.
+ *
+ * <p>States are interned to dense indices, and every choice of every state is laid out in a single flat array.
+ * The choices of a state are contiguous, and their {@link DialogueChoice#next() next} state is pre-resolved to an index.
+ * This lets the dialogue state machine run without any string lookup once it has been created.
+ *
+ * <p>A graph only depends on state keys, choice targets and choice conditions, so it is shared between a template
+ * and all of its {@linkplain DialogueTemplate#resolve(net.minecraft.network.chat.ResolutionContext) resolved} copies.
+ * It also remembers which states of the source template contain context-sensitive text, so that resolution
+ * can skip the others.
+ *
+ * <p>Graphs are kept next to the state maps they were compiled from rather than in templates themselves,
+ * so that templates keep their value semantics.
+ */
+public final class DialogueGraph {
+    /**
+     * Index returned when a state key does not exist in the dialogue
+     */
+    public static final int NO_STATE = -1;
+    /**
+     * Graphs of the state maps of live templates, compared by identity
+     */
+    private static final Cache<Map<String, DialogueState>, DialogueGraph> graphs = CacheBuilder.newBuilder().weakKeys().build();
+    private static final DialogueGraph EMPTY = new DialogueGraph(new String[0], new Object2IntOpenHashMap<>(), new int[1], new int[0], new int[0], new BitSet(), new BitSet());
+
+    private final String[] stateKeys;
+    private final Object2IntMap<String> stateIndices;
+    /**
+     * Flat index of the first choice of each state, with a trailing entry for the total choice count
+     */
+    private final int[] firstChoices;
+    private final int[] choiceOwners;
+    private final int[] choiceTargets;
+    private final BitSet conditionalChoices;
+    private final BitSet contextSensitiveStates;
+
+    private DialogueGraph(String[] stateKeys, Object2IntMap<String> stateIndices, int[] firstChoices, int[] choiceOwners, int[] choiceTargets, BitSet conditionalChoices, BitSet contextSensitiveStates) {
+        this.stateKeys = stateKeys;
+        this.stateIndices = stateIndices;
+        this.firstChoices = firstChoices;
+        this.choiceOwners = choiceOwners;
+        this.choiceTargets = choiceTargets;
+        this.conditionalChoices = conditionalChoices;
+        this.contextSensitiveStates = contextSensitiveStates;
+    }
+
+    /**
+     * @return the graph of the given states, compiled the first time it gets requested
+     */
+    public static DialogueGraph of(Map<String, DialogueState> states) {
+        return graphs.asMap().computeIfAbsent(states, DialogueGraph::compile);
+    }
+
+    /**
+     * Lets a copy of some states with the same structure reuse their graph instead of compiling its own
+     */
+    static void share(Map<String, DialogueState> source, Map<String, DialogueState> copy) {
+        graphs.asMap().putIfAbsent(copy, of(source));
+    }
+
+    public static DialogueGraph compile(Map<String, DialogueState> states) {
+        return EMPTY.append(new DialogueState[0], states);
+    }
+
+    /**
+     * Creates a graph with more states, in which the states and choices of this graph keep their indices.
+     *
+     * <p>Choices of this graph which led to unknown states get pointed to the new states they reference.
+     *
+     * @param states      the states this graph was compiled from, by index
+     * @param addedStates states which keys are not part of this graph yet
+     */
+    public DialogueGraph append(DialogueState[] states, Map<String, DialogueState> addedStates) {
+        int knownStateCount = this.stateKeys.length;
+        int knownChoiceCount = this.choiceOwners.length;
+        String[] stateKeys = Arrays.copyOf(this.stateKeys, knownStateCount + addedStates.size());
+        Object2IntMap<String> stateIndices = new Object2IntOpenHashMap<>(this.stateIndices);
+        stateIndices.defaultReturnValue(NO_STATE);
+        int[] firstChoices = Arrays.copyOf(this.firstChoices, stateKeys.length + 1);
+        int choiceCount = knownChoiceCount;
+
+        int state = knownStateCount;
+        for (Map.Entry<String, DialogueState> addedState : addedStates.entrySet()) {
+            stateKeys[state] = addedState.getKey();
+            stateIndices.put(addedState.getKey(), state);
+            firstChoices[state] = choiceCount;
+            choiceCount += addedState.getValue().choices().size();
+            state++;
+        }
+
+        firstChoices[stateKeys.length] = choiceCount;
+        int[] choiceOwners = Arrays.copyOf(this.choiceOwners, choiceCount);
+        int[] choiceTargets = Arrays.copyOf(this.choiceTargets, choiceCount);
+        BitSet conditionalChoices = (BitSet) this.conditionalChoices.clone();
+        BitSet contextSensitiveStates = (BitSet) this.contextSensitiveStates.clone();
+
+        for (int choiceIndex = 0; choiceIndex < knownChoiceCount; choiceIndex++) {
+            if (choiceTargets[choiceIndex] == NO_STATE) {
+                choiceTargets[choiceIndex] = stateIndices.getInt(states[choiceOwners[choiceIndex]].choices().get(this.getLocalChoice(choiceIndex)).next());
+            }
+        }
+
+        for (state = knownStateCount; state < stateKeys.length; state++) {
+            DialogueState dialogueState = addedStates.get(stateKeys[state]);
+            contextSensitiveStates.set(state, ContextSensitivity.isContextSensitive(dialogueState));
+            List<DialogueChoice> choices = dialogueState.choices();
+            for (int i = 0; i < choices.size(); i++) {
+                DialogueChoice choice = choices.get(i);
+                int choiceIndex = firstChoices[state] + i;
+                choiceOwners[choiceIndex] = state;
+                // Dangling references are caught by validation, and refused again by the state machine
+                choiceTargets[choiceIndex] = stateIndices.getInt(choice.next());
+                conditionalChoices.set(choiceIndex, choice.condition().isPresent());
+            }
+        }
+
+        return new DialogueGraph(stateKeys, stateIndices, firstChoices, choiceOwners, choiceTargets, conditionalChoices, contextSensitiveStates);
+    }
+
+    public int stateCount() {
+        return this.stateKeys.length;
+    }
+
+    /**
+     * @return the index of the state with the given key, or {@link #NO_STATE} if there is none
+     */
+    public int getStateIndex(String stateKey) {
+        return this.stateIndices.getInt(stateKey);
+    }
+
+    public String getStateKey(int state) {
+        return this.stateKeys[state];
+    }
+
+    /**
+     * @return the total number of choices across all states
+     */
+    public int choiceCount() {
+        return this.choiceOwners.length;
+    }
+
+    public int choiceCount(int state) {
+        return this.firstChoices[state + 1] - this.firstChoices[state];
+    }
+
+    /**
+     * @return the flat index of the {@code choice}th choice of {@code state}
+     */
+    public int getChoiceIndex(int state, int choice) {
+        return this.firstChoices[state] + choice;
+    }
+
+    /**
+     * @return the state which the choice at the given flat index belongs to
+     */
+    public int getOwnerState(int choiceIndex) {
+        return this.choiceOwners[choiceIndex];
+    }
+
+    /**
+     * @return the index of the choice at the given flat index, relative to its owner state
+     */
+    public int getLocalChoice(int choiceIndex) {
+        return choiceIndex - this.firstChoices[this.choiceOwners[choiceIndex]];
+    }
+
+    /**
+     * @return the state the choice at the given flat index leads to, or {@link #NO_STATE} if it references an unknown state
+     */
+    public int getNextState(int choiceIndex) {
+        return this.choiceTargets[choiceIndex];
+    }
+
+    public boolean isConditional(int choiceIndex) {
+        return this.conditionalChoices.get(choiceIndex);
+    }
+
+    public boolean hasConditions() {
+        return !this.conditionalChoices.isEmpty();
+    }
+
+    /**
+     * Iterates over conditional choices, in the same manner as {@link BitSet#nextSetBit(int)}
+     *
+     * @return the flat index of the first conditional choice at or after {@code fromIndex}, or {@code -1} if there is none
+     */
+    public int nextConditionalChoice(int fromIndex) {
+        return this.conditionalChoices.nextSetBit(fromIndex);
+    }
+
+    /**
+     * @return {@code true} if the given state of the source template has text that must be resolved for each player
+     */
+    public boolean isContextSensitive(int state) {
+        return this.contextSensitiveStates.get(state);
+    }
+
+    public boolean hasContextSensitiveStates() {
+        return !this.contextSensitiveStates.isEmpty();
+    }
+}
@@ -63,19 +63,61 @@ public record DialogueTemplate(
             DialogueTemplate::new
     );
 
+    /**
+     * @return the compiled structure of this dialogue
+     */
+    public DialogueGraph graph() {
+        return DialogueGraph.of(this.states);
+    }
+
+    /**
+     * Resolves the context-sensitive parts of this dialogue, like selectors and scores.
+     *
+     * <p>States without any such content are shared with this template rather than copied,
+     * and if nothing at all depends on the context, this template is returned as-is.
+     */
     public DialogueTemplate resolve(ResolutionContext context) throws CommandSyntaxException {
-        Map<String, DialogueState> parsedStates = new HashMap<>(states().size());
+        return this.resolve(context, true);
+    }
+
+    /**
+     * @param resolveStates if {@code false}, only the name and illustrations get resolved,
+     *                      leaving states to be {@linkplain DialogueState#resolve(ResolutionContext) resolved} later
+     * @see #resolve(ResolutionContext)
+     */
+    public DialogueTemplate resolve(ResolutionContext context, boolean resolveStates) throws CommandSyntaxException {
+        boolean changed = false;
+        Map<String, DialogueState> parsedStates = states();
 
-        for (Map.Entry<String, DialogueState> state : states().entrySet()) {
-            parsedStates.put(state.getKey(), state.getValue().resolve(context));
+        DialogueGraph graph = this.graph();
+        if (resolveStates && graph.hasContextSensitiveStates()) {
+            parsedStates = new HashMap<>(states().size());
+            for (int i = 0; i < graph.stateCount(); i++) {
+                String key = graph.getStateKey(i);
+                DialogueState state = states().get(key);
+                parsedStates.put(key, graph.isContextSensitive(i) ? state.resolve(context) : state);
+            }
+            // resolution does not change the structure of the dialogue
+            DialogueGraph.share(states(), parsedStates);
+            changed = true;
         }
 
         Map<String, DialogueIllustration> parsedIllustrations = new HashMap<>(illustrations().size());
         for (Map.Entry<String, DialogueIllustration> illustration : illustrations().entrySet()) {
-            parsedIllustrations.put(illustration.getKey(), illustration.getValue().resolve(context));
+            DialogueIllustration parsed = illustration.getValue().resolve(context);
+            parsedIllustrations.put(illustration.getKey(), parsed);
+            changed |= parsed != illustration.getValue();
         }
 
-        Optional<Component> resolvedName = name.isPresent() ? Optional.of(ComponentUtils.resolve(context, name.get())) : Optional.empty();
+        Optional<Component> resolvedName = name();
+        if (resolvedName.isPresent() && ContextSensitivity.isContextSensitive(resolvedName.get())) {
+            resolvedName = Optional.of(ComponentUtils.resolve(context, resolvedName.get()));
+            changed = true;
+        }
+
+        if (!changed) {
+            return this;
+        }
 
         return new DialogueTemplate(
                 resolvedName,
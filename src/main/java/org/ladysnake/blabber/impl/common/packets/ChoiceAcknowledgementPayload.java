@@ -0,0 +1,48 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.packets;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import org.ladysnake.blabber.impl.common.BlabberRegistrar;
+
+import java.util.Optional;
+
+/**
+ * Acknowledges every choice the server received from a client during a tick
+ *
+ * @param sequence     the sequence number of the last processed choice
+ * @param stateId      the id of the state the dialogue is in after processing that choice
+ * @param availability the availability of the choices in that state, only sent when a choice got rejected
+ */
+public record ChoiceAcknowledgementPayload(int sequence, int stateId, Optional<ChoiceAvailabilityPayload> availability) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<ChoiceAcknowledgementPayload> ID = BlabberRegistrar.payloadId("choice_acknowledgement");
+    public static final StreamCodec<ByteBuf, ChoiceAcknowledgementPayload> PACKET_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, ChoiceAcknowledgementPayload::sequence,
+            ByteBufCodecs.VAR_INT, ChoiceAcknowledgementPayload::stateId,
+            ByteBufCodecs.optional(ChoiceAvailabilityPayload.PACKET_CODEC), ChoiceAcknowledgementPayload::availability,
+            ChoiceAcknowledgementPayload::new
+    );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return ID;
+    }
+}
@@ -18,30 +18,33 @@
 package org.ladysnake.blabber.impl.common.packets;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.DecoderException;
 import it.unimi.dsi.fastutil.ints.Int2BooleanMap;
 import it.unimi.dsi.fastutil.ints.Int2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.network.VarInt;
 import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import org.ladysnake.blabber.impl.common.BlabberRegistrar;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.IntFunction;
-
 /**
- * Represents a list of dialogue choices which availability has changed
+ * Represents a list of dialogue choices which availability has changed, grouped by the id of their state
+ *
+ * <p>On the wire, the choices of each state are packed as two bitsets of the same length:
+ * one flagging which choices got updated, and one holding their new availability.
  */
-public record ChoiceAvailabilityPayload(Map<String, Int2BooleanMap> updatedChoices) implements CustomPacketPayload {
+public record ChoiceAvailabilityPayload(Int2ObjectMap<Int2BooleanMap> updatedChoices) implements CustomPacketPayload {
     public static final CustomPacketPayload.Type<ChoiceAvailabilityPayload> ID = BlabberRegistrar.payloadId("choice_availability");
     public static final StreamCodec<ByteBuf, ChoiceAvailabilityPayload> PACKET_CODEC = ByteBufCodecs.map(
-            (IntFunction<Map<String, Int2BooleanMap>>) HashMap::new,
-            ByteBufCodecs.STRING_UTF8,
-            ByteBufCodecs.map(Int2BooleanOpenHashMap::new, ByteBufCodecs.VAR_INT, ByteBufCodecs.BOOL)
+            Int2ObjectOpenHashMap::new,
+            ByteBufCodecs.VAR_INT,
+            StreamCodec.of(ChoiceAvailabilityPayload::writeChoices, ChoiceAvailabilityPayload::readChoices)
     ).map(ChoiceAvailabilityPayload::new, ChoiceAvailabilityPayload::updatedChoices);
 
     public ChoiceAvailabilityPayload() {
-        this(new HashMap<>());
+        this(new Int2ObjectOpenHashMap<>());
     }
 
     @Override
@@ -49,7 +52,48 @@ public record ChoiceAvailabilityPayload(Map<String, Int2BooleanMap> updatedChoic
         return ID;
     }
 
-    public void markUpdated(String stateKey, int choiceIndex, boolean newValue) {
-        this.updatedChoices().computeIfAbsent(stateKey, s -> new Int2BooleanOpenHashMap()).put(choiceIndex, newValue);
+    public void markUpdated(int stateId, int choiceIndex, boolean newValue) {
+        this.updatedChoices().computeIfAbsent(stateId, s -> new Int2BooleanOpenHashMap()).put(choiceIndex, newValue);
+    }
+
+    private static void writeChoices(ByteBuf buf, Int2BooleanMap choices) {
+        int choiceCount = 0;
+        for (int choice : choices.keySet()) {
+            choiceCount = Math.max(choiceCount, choice + 1);
+        }
+        int byteCount = (choiceCount + 7) >> 3;
+        byte[] updated = new byte[byteCount];
+        byte[] values = new byte[byteCount];
+        for (Int2BooleanMap.Entry choice : choices.int2BooleanEntrySet()) {
+            int index = choice.getIntKey();
+            updated[index >> 3] |= (byte) (1 << (index & 7));
+            if (choice.getBooleanValue()) {
+                values[index >> 3] |= (byte) (1 << (index & 7));
+            }
+        }
+        VarInt.write(buf, byteCount);
+        buf.writeBytes(updated);
+        buf.writeBytes(values);
+    }
+
+    private static Int2BooleanMap readChoices(ByteBuf buf) {
+        int byteCount = VarInt.read(buf);
+        if (byteCount < 0 || byteCount * 2L > buf.readableBytes()) {
+            throw new DecoderException("Invalid choice bitset length " + byteCount);
+        }
+        Int2BooleanMap choices = new Int2BooleanOpenHashMap();
+        int updatedStart = buf.readerIndex();
+        int valuesStart = updatedStart + byteCount;
+        for (int i = 0; i < byteCount; i++) {
+            byte updated = buf.getByte(updatedStart + i);
+            byte values = buf.getByte(valuesStart + i);
+            for (int bit = 0; bit < 8; bit++) {
+                if ((updated & (1 << bit)) != 0) {
+                    choices.put((i << 3) | bit, (values & (1 << bit)) != 0);
+                }
+            }
+        }
+        buf.skipBytes(byteCount * 2);
+        return choices;
     }
 }
@@ -23,9 +23,19 @@ import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import org.ladysnake.blabber.impl.common.BlabberRegistrar;
 
-public record ChoiceSelectionPayload(byte selectedChoice) implements CustomPacketPayload {
+/**
+ * @param sequence       a number incremented with every choice made in the same dialogue screen
+ * @param stateId        the id of the state the client was in when making the choice
+ * @param selectedChoice the index of the choice within that state
+ */
+public record ChoiceSelectionPayload(int sequence, int stateId, byte selectedChoice) implements CustomPacketPayload {
     public static final CustomPacketPayload.Type<ChoiceSelectionPayload> ID = BlabberRegistrar.payloadId("choice_selection");
-    public static final StreamCodec<ByteBuf, ChoiceSelectionPayload> PACKET_CODEC = ByteBufCodecs.BYTE.map(ChoiceSelectionPayload::new, ChoiceSelectionPayload::selectedChoice);
+    public static final StreamCodec<ByteBuf, ChoiceSelectionPayload> PACKET_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, ChoiceSelectionPayload::sequence,
+            ByteBufCodecs.VAR_INT, ChoiceSelectionPayload::stateId,
+            ByteBufCodecs.BYTE, ChoiceSelectionPayload::selectedChoice,
+            ChoiceSelectionPayload::new
+    );
 
     @Override
     public Type<? extends CustomPacketPayload> type() {
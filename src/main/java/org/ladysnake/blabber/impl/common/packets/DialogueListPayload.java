@@ -17,23 +17,132 @@
  */
 package org.ladysnake.blabber.impl.common.packets;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.network.VarInt;
 import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.Identifier;
 import org.ladysnake.blabber.impl.common.BlabberRegistrar;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.function.IntFunction;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
 
-public record DialogueListPayload(Set<Identifier> dialogueIds) implements CustomPacketPayload {
+/**
+ * Synchronizes the ids of the dialogues available on the server, either as a full list or as the changes since a previous version
+ *
+ * <p>On the wire, ids are grouped by namespace, and each path only holds what differs from the previous one in sorted order.
+ *
+ * @param baseVersion the version these changes apply to, or {@link #FULL} if {@code addedIds} holds every id
+ * @param version     the version of the dialogue list after applying these changes
+ */
+public record DialogueListPayload(int baseVersion, int version, Set<Identifier> addedIds, Set<Identifier> removedIds) implements CustomPacketPayload {
+    public static final int FULL = -1;
     public static final CustomPacketPayload.Type<DialogueListPayload> ID = BlabberRegistrar.payloadId("dialogue_list");
-    public static final StreamCodec<ByteBuf, DialogueListPayload> PACKET_CODEC = Identifier.STREAM_CODEC.apply(ByteBufCodecs.collection((IntFunction<Set<Identifier>>) HashSet::new)).map(DialogueListPayload::new, DialogueListPayload::dialogueIds);
+    private static final StreamCodec<ByteBuf, Set<Identifier>> ID_SET_CODEC = StreamCodec.of(DialogueListPayload::writeIds, DialogueListPayload::readIds);
+    private static final StreamCodec<ByteBuf, DialogueListPayload> DIRECT_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, DialogueListPayload::baseVersion,
+            ByteBufCodecs.VAR_INT, DialogueListPayload::version,
+            ID_SET_CODEC, DialogueListPayload::addedIds,
+            ID_SET_CODEC, DialogueListPayload::removedIds,
+            DialogueListPayload::new
+    );
+    /**
+     * The same payload usually gets sent to every player, so its bytes only get computed once
+     */
+    private static final Cache<DialogueListPayload, byte[]> encodedPayloads = CacheBuilder.newBuilder().weakKeys().build();
+    public static final StreamCodec<ByteBuf, DialogueListPayload> PACKET_CODEC = StreamCodec.of(
+            (buf, payload) -> buf.writeBytes(payload.getEncoded()),
+            DIRECT_CODEC
+    );
+
+    public static DialogueListPayload full(int version, Set<Identifier> dialogueIds) {
+        return new DialogueListPayload(FULL, version, dialogueIds, Set.of());
+    }
+
+    public boolean isFull() {
+        return this.baseVersion == FULL;
+    }
 
     @Override
     public Type<? extends CustomPacketPayload> type() {
         return ID;
     }
+
+    /**
+     * @return the network form of this payload, shared by every send
+     */
+    @VisibleForTesting
+    byte[] getEncoded() {
+        try {
+            return encodedPayloads.get(this, () -> {
+                ByteBuf buf = Unpooled.buffer();
+                try {
+                    DIRECT_CODEC.encode(buf, this);
+                    byte[] bytes = new byte[buf.readableBytes()];
+                    buf.readBytes(bytes);
+                    return bytes;
+                } finally {
+                    buf.release();
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to encode dialogue list", e.getCause());
+        }
+    }
+
+    private static void writeIds(ByteBuf buf, Set<Identifier> ids) {
+        Map<String, List<String>> pathsByNamespace = new TreeMap<>();
+        for (Identifier id : ids) {
+            pathsByNamespace.computeIfAbsent(id.getNamespace(), n -> new ArrayList<>()).add(id.getPath());
+        }
+        VarInt.write(buf, pathsByNamespace.size());
+        for (Map.Entry<String, List<String>> namespace : pathsByNamespace.entrySet()) {
+            List<String> paths = namespace.getValue();
+            paths.sort(null);
+            ByteBufCodecs.STRING_UTF8.encode(buf, namespace.getKey());
+            VarInt.write(buf, paths.size());
+            String previous = "";
+            for (String path : paths) {
+                int sharedLength = 0;
+                int maxSharedLength = Math.min(previous.length(), path.length());
+                while (sharedLength < maxSharedLength && previous.charAt(sharedLength) == path.charAt(sharedLength)) {
+                    sharedLength++;
+                }
+                VarInt.write(buf, sharedLength);
+                ByteBufCodecs.STRING_UTF8.encode(buf, path.substring(sharedLength));
+                previous = path;
+            }
+        }
+    }
+
+    private static Set<Identifier> readIds(ByteBuf buf) {
+        Set<Identifier> ids = new HashSet<>();
+        int namespaceCount = VarInt.read(buf);
+        for (int i = 0; i < namespaceCount; i++) {
+            String namespace = ByteBufCodecs.STRING_UTF8.decode(buf);
+            int pathCount = VarInt.read(buf);
+            String previous = "";
+            for (int j = 0; j < pathCount; j++) {
+                int sharedLength = VarInt.read(buf);
+                if (sharedLength > previous.length()) {
+                    throw new DecoderException("Invalid shared prefix length " + sharedLength + " after " + previous);
+                }
+                String path = previous.substring(0, sharedLength) + ByteBufCodecs.STRING_UTF8.decode(buf);
+                ids.add(Identifier.fromNamespaceAndPath(namespace, path));
+                previous = path;
+            }
+        }
+        return ids;
+    }
 }
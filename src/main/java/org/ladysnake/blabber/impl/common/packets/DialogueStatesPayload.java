@@ -0,0 +1,50 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.packets;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import org.ladysnake.blabber.impl.common.BlabberRegistrar;
+import org.ladysnake.blabber.impl.common.model.DialogueState;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Represents dialogue states which were revealed to the client after the dialogue was opened,
+ * along with the availability of their choices
+ *
+ * @param firstStateId the id of the first state in {@code states}, the following ones having consecutive ids
+ */
+public record DialogueStatesPayload(int firstStateId, Map<String, DialogueState> states, ChoiceAvailabilityPayload availability) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<DialogueStatesPayload> ID = BlabberRegistrar.payloadId("dialogue_states");
+    public static final StreamCodec<FriendlyByteBuf, DialogueStatesPayload> PACKET_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, DialogueStatesPayload::firstStateId,
+            ByteBufCodecs.map((IntFunction<Map<String, DialogueState>>) LinkedHashMap::new, ByteBufCodecs.STRING_UTF8, DialogueState.PACKET_CODEC), DialogueStatesPayload::states,
+            ChoiceAvailabilityPayload.PACKET_CODEC, DialogueStatesPayload::availability,
+            DialogueStatesPayload::new
+    );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return ID;
+    }
+}
@@ -18,14 +18,19 @@
 package org.ladysnake.blabber.impl.common.packets;
 
 import io.netty.buffer.ByteBuf;
-import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import org.ladysnake.blabber.impl.common.BlabberRegistrar;
 
-public record SelectedDialogueStatePayload(String stateKey) implements CustomPacketPayload {
-    public static final CustomPacketPayload.Type<SelectedDialogueStatePayload> ID = BlabberRegistrar.payloadId("selected_dialogue_state");
-    public static final StreamCodec<ByteBuf, SelectedDialogueStatePayload> PACKET_CODEC = ByteBufCodecs.STRING_UTF8.map(SelectedDialogueStatePayload::new, SelectedDialogueStatePayload::stateKey);
+/**
+ * Tells a client during configuration that dialogue templates may be sent to it compressed
+ *
+ * <p>Clients announce they support compression by registering a receiver for this payload.
+ */
+public record TemplateCompressionPayload() implements CustomPacketPayload {
+    public static final TemplateCompressionPayload INSTANCE = new TemplateCompressionPayload();
+    public static final CustomPacketPayload.Type<TemplateCompressionPayload> ID = BlabberRegistrar.payloadId("template_compression");
+    public static final StreamCodec<ByteBuf, TemplateCompressionPayload> PACKET_CODEC = StreamCodec.unit(INSTANCE);
 
     @Override
     public Type<? extends CustomPacketPayload> type() {
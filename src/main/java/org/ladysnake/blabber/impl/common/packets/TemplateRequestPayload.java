@@ -0,0 +1,42 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.packets;
+
+import com.google.common.hash.HashCode;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import org.ladysnake.blabber.impl.common.BlabberRegistrar;
+
+/**
+ * Sent by a client that got referred to a dialogue template it does not have, so that the server sends it again in full
+ *
+ * @param hash the hash of the missing template
+ */
+public record TemplateRequestPayload(HashCode hash) implements CustomPacketPayload {
+    public static final CustomPacketPayload.Type<TemplateRequestPayload> ID = BlabberRegistrar.payloadId("template_request");
+    public static final StreamCodec<ByteBuf, TemplateRequestPayload> PACKET_CODEC = ByteBufCodecs.BYTE_ARRAY
+            .map(HashCode::fromBytes, HashCode::asBytes)
+            .map(TemplateRequestPayload::new, TemplateRequestPayload::hash);
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return ID;
+    }
+}
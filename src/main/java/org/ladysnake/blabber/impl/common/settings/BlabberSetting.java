@@ -25,7 +25,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 public enum BlabberSetting implements StringRepresentable {
-    DEBUG_ANCHORS("debug.anchors");
+    DEBUG_ANCHORS("debug.anchors"),
+    DEBUG_PREFETCH("debug.prefetch");
     public static final Codec<BlabberSetting> CODEC = StringRepresentable.fromValues(BlabberSetting::values);
     private static final Map<String, BlabberSetting> index = new HashMap<>();
 
@@ -0,0 +1,60 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.client.illustrations;
+
+import com.mojang.authlib.GameProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FakePlayerProfilesTest {
+    private static final GameProfile PROFILE = new GameProfile(UUID.fromString("0c9fa7e1-8d4e-4b2a-9a73-5a1f3b8c2d10"), "Steve");
+
+    @AfterEach
+    public void restoreSkinSource() {
+        FakePlayerProfiles.resetSkinSource();
+    }
+
+    @Test
+    public void profilesAreOnlyShownOnceResolved() {
+        CompletableFuture<GameProfile> pending = new CompletableFuture<>();
+        AtomicInteger lookups = new AtomicInteger();
+        FakePlayerProfiles.setSkinSource(profile -> {
+            lookups.incrementAndGet();
+            return pending;
+        });
+
+        FakePlayerProfiles.prepare(PROFILE);
+        Assertions.assertNull(FakePlayerProfiles.getIfReady(PROFILE));
+
+        GameProfile resolved = new GameProfile(PROFILE.id(), "Alex");
+        pending.complete(resolved);
+        Assertions.assertSame(resolved, FakePlayerProfiles.getIfReady(PROFILE));
+        Assertions.assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void failedLookupsFallBackToTheOriginalProfile() {
+        FakePlayerProfiles.setSkinSource(profile -> CompletableFuture.failedFuture(new IllegalStateException("offline")));
+        Assertions.assertSame(PROFILE, FakePlayerProfiles.getIfReady(PROFILE));
+    }
+}
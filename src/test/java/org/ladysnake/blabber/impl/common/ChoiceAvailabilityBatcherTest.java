@@ -0,0 +1,88 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
+
+public class ChoiceAvailabilityBatcherTest {
+    @Test
+    public void updatesWithinWindowAreMerged() {
+        ChoiceAvailabilityBatcher batcher = new ChoiceAvailabilityBatcher();
+        long suppressed = ChoiceAvailabilityBatcher.getSuppressedPacketCount();
+        batcher.add(update(0, 1, true));
+        Assertions.assertNotNull(batcher.poll(0));
+        Assertions.assertEquals(suppressed, ChoiceAvailabilityBatcher.getSuppressedPacketCount());
+        batcher.add(update(0, 2, true));
+        batcher.add(update(1, 0, false));
+        Assertions.assertNull(batcher.poll(1));
+        Assertions.assertEquals(suppressed + 1, ChoiceAvailabilityBatcher.getSuppressedPacketCount());
+
+        ChoiceAvailabilityPayload batch = batcher.poll(ChoiceAvailabilityBatcher.WINDOW);
+        Assertions.assertNotNull(batch);
+        Assertions.assertTrue(batch.updatedChoices().get(0).get(2));
+        Assertions.assertFalse(batch.updatedChoices().get(1).get(0));
+        Assertions.assertEquals(suppressed + 1, ChoiceAvailabilityBatcher.getSuppressedPacketCount());
+    }
+
+    @Test
+    public void revertedUpdatesCancelOut() {
+        ChoiceAvailabilityBatcher batcher = new ChoiceAvailabilityBatcher();
+        long suppressed = ChoiceAvailabilityBatcher.getSuppressedPacketCount();
+        batcher.add(update(0, 1, true));
+        batcher.add(update(0, 3, true));
+        batcher.add(update(0, 1, false));
+        ChoiceAvailabilityPayload batch = batcher.poll(0);
+        Assertions.assertNotNull(batch);
+        Assertions.assertFalse(batch.updatedChoices().get(0).containsKey(1));
+        Assertions.assertTrue(batch.updatedChoices().get(0).get(3));
+        Assertions.assertEquals(suppressed + 2, ChoiceAvailabilityBatcher.getSuppressedPacketCount());
+
+        batcher.add(update(0, 3, false));
+        batcher.add(update(0, 3, true));
+        Assertions.assertNull(batcher.poll(ChoiceAvailabilityBatcher.WINDOW));
+        // Both updates cancelled out, so neither of them gets sent
+        Assertions.assertEquals(suppressed + 4, ChoiceAvailabilityBatcher.getSuppressedPacketCount());
+    }
+
+    @Test
+    public void droppedUpdatesAreSuppressed() {
+        ChoiceAvailabilityBatcher batcher = new ChoiceAvailabilityBatcher();
+        long suppressed = ChoiceAvailabilityBatcher.getSuppressedPacketCount();
+        batcher.add(update(0, 1, true));
+        batcher.add(update(1, 1, true));
+        batcher.discard(0);
+        Assertions.assertEquals(suppressed + 1, ChoiceAvailabilityBatcher.getSuppressedPacketCount());
+        batcher.discard(1);
+        Assertions.assertEquals(suppressed + 2, ChoiceAvailabilityBatcher.getSuppressedPacketCount());
+        Assertions.assertNull(batcher.poll(0));
+        Assertions.assertEquals(suppressed + 2, ChoiceAvailabilityBatcher.getSuppressedPacketCount());
+
+        batcher.add(update(0, 1, true));
+        batcher.clear();
+        batcher.clear();
+        Assertions.assertEquals(suppressed + 3, ChoiceAvailabilityBatcher.getSuppressedPacketCount());
+    }
+
+    private static ChoiceAvailabilityPayload update(int stateId, int choice, boolean available) {
+        ChoiceAvailabilityPayload payload = new ChoiceAvailabilityPayload();
+        payload.markUpdated(stateId, choice, available);
+        return payload;
+    }
+}
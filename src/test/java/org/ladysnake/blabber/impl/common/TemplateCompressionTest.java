@@ -0,0 +1,137 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.mojang.serialization.JsonOps;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.server.Bootstrap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.Deflater;
+
+public class TemplateCompressionTest {
+    private static final List<String> TESTMOD_DIALOGUES = List.of(
+            "illustration_tests",
+            "mountain_king",
+            "perception_check",
+            "remnant_choice",
+            "rpg_layout_gametest"
+    );
+    private static RegistryAccess registries;
+
+    @BeforeAll
+    public static void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        registries = RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY);
+    }
+
+    @Test
+    public void compressedTemplatesRoundTrip() {
+        for (String name : TESTMOD_DIALOGUES) {
+            byte[] bytes = encode(loadDialogue(name));
+            byte[] compressed = TemplateCompression.compress(bytes);
+            if (compressed == null) {
+                Assertions.assertTrue(bytes.length < TemplateCompression.THRESHOLD, name + " should have been compressed");
+                continue;
+            }
+            Assertions.assertTrue(compressed.length < bytes.length);
+            Assertions.assertArrayEquals(bytes, TemplateCompression.decompress(compressed, bytes.length), name);
+        }
+    }
+
+    @Test
+    public void syncedTemplatesSurviveCompression() {
+        DialogueTemplate template = loadDialogue("illustration_tests");
+        byte[] expected = encode(template);
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(), registries);
+        try {
+            DialogueTemplateCache.SyncedTemplate.PACKET_CODEC.encode(buf, new DialogueTemplateCache.SyncedTemplate(DialogueTemplateCache.hash(template, registries), Optional.of(template), true));
+            Assertions.assertTrue(buf.readableBytes() < expected.length, "the template should have been sent compressed");
+            DialogueTemplateCache.SyncedTemplate decoded = DialogueTemplateCache.SyncedTemplate.PACKET_CODEC.decode(buf);
+            Assertions.assertTrue(decoded.compress());
+            Assertions.assertArrayEquals(expected, encode(decoded.content().orElseThrow()));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void smallTemplatesAreNotCompressed() {
+        Assertions.assertNull(TemplateCompression.compress(new byte[TemplateCompression.THRESHOLD - 1]));
+    }
+
+    @Test
+    public void malformedDataIsRejected() {
+        byte[] bytes = encode(loadDialogue("illustration_tests"));
+        byte[] compressed = TemplateCompression.compress(bytes);
+        Assertions.assertNotNull(compressed);
+        Assertions.assertThrows(DecoderException.class, () -> TemplateCompression.decompress(compressed, bytes.length + 1));
+        Assertions.assertThrows(DecoderException.class, () -> TemplateCompression.decompress(Arrays.copyOf(compressed, compressed.length / 2), bytes.length));
+        Assertions.assertThrows(DecoderException.class, () -> TemplateCompression.decompress(compressed, -1));
+        Assertions.assertThrows(DecoderException.class, () -> TemplateCompression.decompress(deflateWithDictionary(bytes, "not the right dictionary"), bytes.length));
+    }
+
+    private static byte[] deflateWithDictionary(byte[] bytes, String dictionary) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setDictionary(dictionary.getBytes(StandardCharsets.UTF_8));
+            deflater.setInput(bytes);
+            deflater.finish();
+            byte[] out = new byte[bytes.length * 2];
+            int length = deflater.deflate(out);
+            return Arrays.copyOf(out, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] encode(DialogueTemplate template) {
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(), registries);
+        try {
+            DialogueTemplate.PACKET_CODEC.encode(buf, template);
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            return bytes;
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static DialogueTemplate loadDialogue(String name) {
+        return DialogueTemplate.CODEC.parse(JsonOps.INSTANCE, new Gson().fromJson(new InputStreamReader(
+                Objects.requireNonNull(TemplateCompressionTest.class.getResourceAsStream("/data/babblings/blabber/dialogues/" + name + ".json")), StandardCharsets.UTF_8
+        ), JsonElement.class)).getOrThrow();
+    }
+}
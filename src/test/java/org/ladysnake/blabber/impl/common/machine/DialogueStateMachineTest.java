@@ -0,0 +1,96 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.machine;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.mojang.serialization.JsonOps;
+import net.minecraft.SharedConstants;
+import net.minecraft.resources.Identifier;
+import net.minecraft.server.Bootstrap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.ladysnake.blabber.impl.common.model.DialogueState;
+import org.ladysnake.blabber.impl.common.model.DialogueTemplate;
+import org.ladysnake.blabber.impl.common.model.StateType;
+import org.ladysnake.blabber.impl.common.packets.ChoiceAvailabilityPayload;
+import org.ladysnake.blabber.impl.common.packets.DialogueStatesPayload;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class DialogueStateMachineTest {
+    private static final Identifier ID = Identifier.fromNamespaceAndPath("blabber", "test");
+
+    @BeforeAll
+    public static void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @Test
+    public void revealedStatesGetAppended() {
+        DialogueTemplate full = loadDialogue("/conditional_dialogue.json");
+        DialogueStateMachine dialogue = new DialogueStateMachine(ID, partial(full, "start"), List.of("start"), 0);
+
+        Assertions.assertNull(dialogue.addStates(new DialogueStatesPayload(1, revealed(full, "bargain"), new ChoiceAvailabilityPayload())));
+        Assertions.assertEquals("start", dialogue.getCurrentStateKey());
+        Assertions.assertEquals(List.of("start", "bargain"), dialogue.getStateKeyTable());
+
+        Assertions.assertEquals(StateType.DEFAULT, dialogue.choose(1).type());
+        Assertions.assertEquals("bargain", dialogue.getCurrentStateKey());
+        Assertions.assertEquals(1, dialogue.getCurrentStateId());
+    }
+
+    @Test
+    public void awaitedStateGetsReachedOnceRevealed() {
+        DialogueTemplate full = loadDialogue("/conditional_dialogue.json");
+        DialogueStateMachine dialogue = new DialogueStateMachine(ID, partial(full, "start"), List.of("start"), 0);
+
+        Assertions.assertSame(ChoiceResult.AWAITING_STATE, dialogue.choose(0));
+        Assertions.assertTrue(dialogue.getAvailableChoices().isEmpty());
+
+        DialogueState reached = dialogue.addStates(new DialogueStatesPayload(1, revealed(full, "end"), new ChoiceAvailabilityPayload()));
+        Assertions.assertNotNull(reached);
+        Assertions.assertEquals(StateType.END_DIALOGUE, reached.type());
+        Assertions.assertEquals("end", dialogue.getCurrentStateKey());
+    }
+
+    private static DialogueTemplate partial(DialogueTemplate template, String... stateKeys) {
+        return new DialogueTemplate(template.name(), template.start(), template.unskippable(), revealed(template, stateKeys), template.illustrations(), template.layout());
+    }
+
+    private static Map<String, DialogueState> revealed(DialogueTemplate template, String... stateKeys) {
+        Map<String, DialogueState> states = new LinkedHashMap<>();
+        for (String stateKey : stateKeys) {
+            states.put(stateKey, template.states().get(stateKey));
+        }
+        return states;
+    }
+
+    private static DialogueTemplate loadDialogue(String name) {
+        return DialogueTemplate.CODEC.parse(JsonOps.INSTANCE, new Gson().fromJson(new InputStreamReader(
+                Objects.requireNonNull(DialogueStateMachineTest.class.getResourceAsStream(name)), StandardCharsets.UTF_8
+        ), JsonElement.class)).getOrThrow();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.model;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.mojang.serialization.JsonOps;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class DialogueChoiceConditionTest {
+    @BeforeAll
+    public static void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @Test
+    public void defaultIntervalIsNotWritten() {
+        JsonElement json = JsonParser.parseString("""
+                {"predicate": "babblings:full_health", "when_unavailable": {"display": "hidden"}, "check_on": ["health"]}
+                """);
+        DialogueChoiceCondition condition = DialogueChoiceCondition.CODEC.parse(JsonOps.INSTANCE, json).getOrThrow();
+        Assertions.assertEquals(DialogueChoiceCondition.DEFAULT_FALLBACK_INTERVAL, condition.checkInterval());
+        JsonElement encoded = DialogueChoiceCondition.CODEC.encodeStart(JsonOps.INSTANCE, condition).getOrThrow();
+        Assertions.assertFalse(encoded.getAsJsonObject().has("check_interval"));
+        Assertions.assertEquals(condition, DialogueChoiceCondition.CODEC.parse(JsonOps.INSTANCE, encoded).getOrThrow());
+    }
+
+    @Test
+    public void explicitIntervalIsWritten() {
+        JsonElement json = JsonParser.parseString("""
+                {"predicate": "babblings:full_health", "when_unavailable": {"display": "hidden"}, "check_interval": 20}
+                """);
+        DialogueChoiceCondition condition = DialogueChoiceCondition.CODEC.parse(JsonOps.INSTANCE, json).getOrThrow();
+        JsonElement encoded = DialogueChoiceCondition.CODEC.encodeStart(JsonOps.INSTANCE, condition).getOrThrow();
+        Assertions.assertEquals(20, encoded.getAsJsonObject().get("check_interval").getAsInt());
+    }
+}
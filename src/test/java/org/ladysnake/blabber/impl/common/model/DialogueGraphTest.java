@@ -0,0 +1,107 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.model;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.mojang.serialization.JsonOps;
+import net.minecraft.SharedConstants;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.Bootstrap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+public class DialogueGraphTest {
+    @BeforeAll
+    public static void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @Test
+    public void graphIndexesEveryState() {
+        DialogueTemplate dialogue = loadDialogue("/conditional_dialogue.json");
+        DialogueGraph graph = dialogue.graph();
+        Assertions.assertEquals(dialogue.states().size(), graph.stateCount());
+        for (String stateKey : dialogue.states().keySet()) {
+            int state = graph.getStateIndex(stateKey);
+            Assertions.assertEquals(stateKey, graph.getStateKey(state));
+            Assertions.assertEquals(dialogue.states().get(stateKey).choices().size(), graph.choiceCount(state));
+        }
+        Assertions.assertEquals(DialogueGraph.NO_STATE, graph.getStateIndex("nonexistent"));
+    }
+
+    @Test
+    public void graphResolvesChoiceTargets() {
+        DialogueTemplate dialogue = loadDialogue("/conditional_dialogue.json");
+        DialogueGraph graph = dialogue.graph();
+        int start = graph.getStateIndex("start");
+        Assertions.assertEquals(graph.getStateIndex("end"), graph.getNextState(graph.getChoiceIndex(start, 0)));
+        Assertions.assertEquals(graph.getStateIndex("bargain"), graph.getNextState(graph.getChoiceIndex(start, 1)));
+        Assertions.assertEquals(start, graph.getOwnerState(graph.getChoiceIndex(start, 1)));
+        Assertions.assertEquals(1, graph.getLocalChoice(graph.getChoiceIndex(start, 1)));
+    }
+
+    @Test
+    public void graphFlagsConditionalChoices() {
+        DialogueTemplate dialogue = loadDialogue("/conditional_dialogue.json");
+        DialogueGraph graph = dialogue.graph();
+        int start = graph.getStateIndex("start");
+        int bargain = graph.getStateIndex("bargain");
+        Assertions.assertTrue(graph.hasConditions());
+        Assertions.assertFalse(graph.isConditional(graph.getChoiceIndex(start, 0)));
+        Assertions.assertTrue(graph.isConditional(graph.getChoiceIndex(bargain, 0)));
+        Assertions.assertTrue(graph.isConditional(graph.getChoiceIndex(bargain, 1)));
+
+        int conditionalChoices = 0;
+        for (int i = graph.nextConditionalChoice(0); i >= 0; i = graph.nextConditionalChoice(i + 1)) {
+            Assertions.assertEquals(bargain, graph.getOwnerState(i));
+            conditionalChoices++;
+        }
+        Assertions.assertEquals(2, conditionalChoices);
+    }
+
+    @Test
+    public void plainTextIsNotContextSensitive() {
+        DialogueGraph graph = loadDialogue("/conditional_dialogue.json").graph();
+        Assertions.assertFalse(graph.hasContextSensitiveStates());
+        Assertions.assertFalse(ContextSensitivity.isContextSensitive(
+                Component.translatable("blabber.test", Component.keybind("key.jump"), 3).append(Component.literal("!"))
+        ));
+    }
+
+    @Test
+    public void graphIsCompiledOncePerStates() {
+        DialogueTemplate dialogue = loadDialogue("/conditional_dialogue.json");
+        Assertions.assertSame(dialogue.graph(), dialogue.graph());
+        DialogueTemplate other = loadDialogue("/conditional_dialogue.json");
+        Assertions.assertEquals(dialogue, other);
+        Assertions.assertEquals(dialogue.hashCode(), other.hashCode());
+    }
+
+    private static DialogueTemplate loadDialogue(String name) {
+        return DialogueTemplate.CODEC.parse(JsonOps.INSTANCE, new Gson().fromJson(new InputStreamReader(
+                Objects.requireNonNull(DialogueGraphTest.class.getResourceAsStream(name)), StandardCharsets.UTF_8
+        ), JsonElement.class)).getOrThrow();
+    }
+}
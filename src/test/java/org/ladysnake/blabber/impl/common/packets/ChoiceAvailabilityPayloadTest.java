@@ -0,0 +1,101 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.packets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2BooleanMap;
+import it.unimi.dsi.fastutil.ints.Int2BooleanOpenHashMap;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+public class ChoiceAvailabilityPayloadTest {
+    /**
+     * The format used before choices got packed into bitsets and states got referred to by id, kept around for size comparisons
+     */
+    private static final StreamCodec<ByteBuf, Map<String, Int2BooleanMap>> LEGACY_CODEC = ByteBufCodecs.map(
+            (IntFunction<Map<String, Int2BooleanMap>>) HashMap::new,
+            ByteBufCodecs.STRING_UTF8,
+            ByteBufCodecs.map(Int2BooleanOpenHashMap::new, ByteBufCodecs.VAR_INT, ByteBufCodecs.BOOL)
+    );
+
+    @Test
+    public void emptyPayloadRoundTrips() {
+        assertRoundTrips(new ChoiceAvailabilityPayload());
+    }
+
+    @Test
+    public void sparseUpdatesRoundTrip() {
+        ChoiceAvailabilityPayload payload = new ChoiceAvailabilityPayload();
+        payload.markUpdated(0, 0, true);
+        payload.markUpdated(0, 3, false);
+        payload.markUpdated(5, 7, true);
+        payload.markUpdated(5, 8, false);
+        payload.markUpdated(5, 17, true);
+        assertRoundTrips(payload);
+    }
+
+    @Test
+    public void emptyStateRoundTrips() {
+        ChoiceAvailabilityPayload payload = new ChoiceAvailabilityPayload();
+        payload.updatedChoices().put(0, new Int2BooleanOpenHashMap());
+        assertRoundTrips(payload);
+    }
+
+    @Test
+    public void truncatedBitsetIsRejected() {
+        ByteBuf buf = Unpooled.buffer();
+        ByteBufCodecs.VAR_INT.encode(buf, 1);
+        ByteBufCodecs.VAR_INT.encode(buf, 0);
+        ByteBufCodecs.VAR_INT.encode(buf, 4);
+        buf.writeByte(0b1);
+        Assertions.assertThrows(RuntimeException.class, () -> ChoiceAvailabilityPayload.PACKET_CODEC.decode(buf));
+    }
+
+    @Test
+    public void packedFormatIsSmallerThanLegacyFormat() {
+        ChoiceAvailabilityPayload payload = new ChoiceAvailabilityPayload();
+        for (int state = 0; state < 20; state++) {
+            for (int choice = 0; choice < 4; choice++) {
+                payload.markUpdated(state, choice, (state + choice) % 3 == 0);
+            }
+        }
+        ByteBuf packed = Unpooled.buffer();
+        ChoiceAvailabilityPayload.PACKET_CODEC.encode(packed, payload);
+        ByteBuf legacy = Unpooled.buffer();
+        Map<String, Int2BooleanMap> legacyPayload = new HashMap<>();
+        payload.updatedChoices().forEach((stateId, choices) -> legacyPayload.put("state_" + stateId, choices));
+        LEGACY_CODEC.encode(legacy, legacyPayload);
+        Assertions.assertTrue(packed.readableBytes() < legacy.readableBytes(),
+                () -> "Packed format took " + packed.readableBytes() + " bytes, legacy format took " + legacy.readableBytes());
+    }
+
+    private static void assertRoundTrips(ChoiceAvailabilityPayload payload) {
+        ByteBuf buf = Unpooled.buffer();
+        ChoiceAvailabilityPayload.PACKET_CODEC.encode(buf, payload);
+        ChoiceAvailabilityPayload decoded = ChoiceAvailabilityPayload.PACKET_CODEC.decode(buf);
+        Assertions.assertEquals(payload.updatedChoices(), decoded.updatedChoices());
+        Assertions.assertEquals(0, buf.readableBytes());
+    }
+}
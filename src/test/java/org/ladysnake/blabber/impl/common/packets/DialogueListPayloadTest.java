@@ -0,0 +1,68 @@
+/*
+ * Blabber
+ * Copyright (C) 2022-2026 Ladysnake
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; If not, see <https://www.gnu.org/licenses>.
+ */
+package org.ladysnake.blabber.impl.common.packets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.resources.Identifier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+public class DialogueListPayloadTest {
+    @Test
+    public void fullListRoundTrips() {
+        assertRoundTrips(DialogueListPayload.full(3, Set.of(
+                Identifier.fromNamespaceAndPath("babblings", "mountain_king"),
+                Identifier.fromNamespaceAndPath("babblings", "mountain_king_2"),
+                Identifier.fromNamespaceAndPath("babblings", "remnant_choice"),
+                Identifier.fromNamespaceAndPath("blabber", "mountain_king"),
+                Identifier.fromNamespaceAndPath("requiem", "cutscenes/intro/part_1")
+        )));
+    }
+
+    @Test
+    public void deltaRoundTrips() {
+        assertRoundTrips(new DialogueListPayload(
+                4,
+                5,
+                Set.of(Identifier.fromNamespaceAndPath("babblings", "perception_check")),
+                Set.of()
+        ));
+    }
+
+    @Test
+    public void encodingIsReused() {
+        DialogueListPayload payload = DialogueListPayload.full(1, Set.of(Identifier.fromNamespaceAndPath("babblings", "mountain_king")));
+        ByteBuf first = Unpooled.buffer();
+        ByteBuf second = Unpooled.buffer();
+        DialogueListPayload.PACKET_CODEC.encode(first, payload);
+        byte[] encoded = payload.getEncoded();
+        DialogueListPayload.PACKET_CODEC.encode(second, payload);
+        Assertions.assertEquals(first, second);
+        Assertions.assertSame(encoded, payload.getEncoded(), "the payload should only have been encoded once");
+    }
+
+    private static void assertRoundTrips(DialogueListPayload payload) {
+        ByteBuf buf = Unpooled.buffer();
+        DialogueListPayload.PACKET_CODEC.encode(buf, payload);
+        Assertions.assertEquals(payload, DialogueListPayload.PACKET_CODEC.decode(buf));
+        Assertions.assertEquals(0, buf.readableBytes());
+    }
+}